@@ -7,6 +7,7 @@ import net.minecraft.entity.player.PlayerEntity;
 import net.minecraft.item.crafting.IRecipeSerializer;
 import net.minecraft.resources.IReloadableResourceManager;
 import net.minecraft.resources.IResourceManager;
+import net.minecraft.resources.IResourceManagerReloadListener;
 import net.minecraft.server.MinecraftServer;
 import net.minecraft.util.text.ITextComponent;
 import net.minecraft.util.text.StringTextComponent;
@@ -47,6 +48,8 @@ import net.silentchaos512.gear.network.Network;
 import net.silentchaos512.gear.parts.PartManager;
 import net.silentchaos512.gear.parts.type.CompoundPart;
 import net.silentchaos512.gear.traits.TraitManager;
+import net.silentchaos512.gear.util.GearHelper;
+import net.silentchaos512.gear.util.SmeltingResultCache;
 import net.silentchaos512.gear.world.ModWorldFeatures;
 import net.silentchaos512.lib.event.Greetings;
 import net.silentchaos512.lib.event.InitialSpawnItems;
@@ -115,6 +118,7 @@ class SideProxy implements IProxy {
         event.addListener(TraitManager.INSTANCE);
         event.addListener(PartManager.INSTANCE);
         event.addListener(MaterialManager.INSTANCE);
+        event.addListener((IResourceManagerReloadListener) manager -> SmeltingResultCache.clear());
 
         if (ModList.get().isLoaded("gamestages")) {
             event.addListener(GameStagesCompat.INSTANCE);
@@ -172,6 +176,8 @@ class SideProxy implements IProxy {
                 IResourceManager resourceManager = Minecraft.getInstance().getResourceManager();
                 if (resourceManager instanceof IReloadableResourceManager) {
                     ((IReloadableResourceManager) resourceManager).addReloadListener(MaterialDisplayManager.INSTANCE);
+                    // Changing the language reloads resources
+                    ((IReloadableResourceManager) resourceManager).addReloadListener((IResourceManagerReloadListener) manager -> GearHelper.clearDisplayNameCache());
                 }
             } else {
                 SilentGear.LOGGER.warn("MC instance is null? Must be running data generators! Not registering model loaders...");
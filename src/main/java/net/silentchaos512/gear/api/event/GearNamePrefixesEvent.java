@@ -9,6 +9,7 @@ import java.util.Collection;
 
 public class GearNamePrefixesEvent extends GearItemEvent {
     private final Collection<ITextComponent> prefixes = new ArrayList<>();
+    private boolean dynamic;
 
     public GearNamePrefixesEvent(ItemStack gear, Collection<PartData> parts) {
         super(gear, parts);
@@ -23,4 +24,16 @@ public class GearNamePrefixesEvent extends GearItemEvent {
     public Collection<ITextComponent> getPrefixes() {
         return prefixes;
     }
+
+    /**
+     * Gear names are cached until the gear's parts change. Call this if the prefixes you add depend
+     * on anything else (the time, the player, etc.), so the name is not cached.
+     */
+    public void setDynamic() {
+        this.dynamic = true;
+    }
+
+    public boolean isDynamic() {
+        return dynamic;
+    }
 }
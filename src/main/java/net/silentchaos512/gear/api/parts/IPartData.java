@@ -23,6 +23,12 @@ public interface IPartData {
     @Nullable
     IGearPart getPart();
 
+    /**
+     * Gets the item the part was made from. The stack may be shared, so it must not be modified.
+     * Copy it if it needs to be changed or given to an inventory.
+     *
+     * @return The crafting item (do not modify)
+     */
     ItemStack getCraftingItem();
 
     CompoundNBT write(CompoundNBT nbt);
@@ -15,6 +15,7 @@ import net.minecraft.util.text.*;
 import net.silentchaos512.gear.api.traits.ITrait;
 import net.silentchaos512.gear.api.traits.ITraitCondition;
 import net.silentchaos512.gear.api.traits.ITraitConditionSerializer;
+import net.silentchaos512.gear.api.traits.TraitEvaluationContext;
 import net.silentchaos512.gear.client.KeyTracker;
 import net.silentchaos512.gear.gear.material.MaterialInstance;
 import net.silentchaos512.gear.traits.TraitManager;
@@ -48,11 +49,27 @@ public class PartTraitInstance {
     }
 
     public boolean conditionsMatch(PartDataList parts, ItemStack gear) {
-        return conditions.stream().allMatch(c -> c.matches(gear, parts, this.trait));
+        return conditions.isEmpty() || conditionsMatch(TraitEvaluationContext.forParts(gear, parts));
     }
 
     public boolean conditionsMatch(Collection<MaterialInstance> materials, PartType partType, ItemStack gear) {
-        return conditions.stream().allMatch(c -> c.matches(gear, partType, materials, this.trait));
+        return conditions.isEmpty() || conditionsMatch(TraitEvaluationContext.forMaterials(gear, partType, materials));
+    }
+
+    /**
+     * Check if all conditions match. Pass the same context for every trait instance when
+     * calculating traits, so data used by conditions is only computed once.
+     *
+     * @param context The parts or materials being evaluated
+     * @return True if there are no conditions or all conditions match
+     */
+    public boolean conditionsMatch(TraitEvaluationContext context) {
+        for (ITraitCondition condition : conditions) {
+            if (!condition.matches(context, this.trait)) {
+                return false;
+            }
+        }
+        return true;
     }
 
     public IFormattableTextComponent getDisplayName() {
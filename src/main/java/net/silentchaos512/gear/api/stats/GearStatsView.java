@@ -0,0 +1,53 @@
+package net.silentchaos512.gear.api.stats;
+
+import net.minecraft.nbt.CompoundNBT;
+import net.minecraft.util.ResourceLocation;
+
+import java.util.Collection;
+
+/**
+ * A decoded, read-only view of the stats stored on a gear item. Values are indexed by {@link
+ * ItemStat#getIndex()}, so reading a stat is a single array load with no string building or NBT
+ * lookups. Views are created by {@link net.silentchaos512.gear.util.GearData#getStatsView} and
+ * cached until the item's stats are rewritten.
+ */
+public final class GearStatsView {
+    public static final GearStatsView EMPTY = new GearStatsView(new float[0]);
+
+    private final float[] values;
+
+    private GearStatsView(float[] values) {
+        this.values = values;
+    }
+
+    /**
+     * Gets the value of the stat, or the stat's default value if it is not stored.
+     *
+     * @param stat The stat
+     * @return The stat value
+     */
+    public float get(ItemStat stat) {
+        int index = stat.getIndex();
+        return index < values.length ? values[index] : stat.getDefaultValue();
+    }
+
+    /**
+     * Decode all stats from a gear item's stats compound. Missing stats are set to their default
+     * values.
+     *
+     * @param tags The stats compound (keys are full stat IDs)
+     * @return A new view of the stats
+     */
+    public static GearStatsView read(CompoundNBT tags) {
+        Collection<ItemStat> stats = ItemStats.allStatsOrdered();
+        float[] values = new float[stats.size()];
+
+        for (ItemStat stat : stats) {
+            ResourceLocation statId = stat.getRegistryName();
+            String key = statId != null ? statId.toString() : "";
+            values[stat.getIndex()] = tags.contains(key) ? tags.getFloat(key) : stat.getDefaultValue();
+        }
+
+        return new GearStatsView(values);
+    }
+}
@@ -10,6 +10,7 @@ import net.minecraftforge.registries.ForgeRegistryEntry;
 import net.silentchaos512.gear.api.parts.MaterialGrade;
 import net.silentchaos512.gear.api.stats.StatInstance.Operation;
 
+import javax.annotation.Nullable;
 import javax.annotation.ParametersAreNonnullByDefault;
 import java.util.Collection;
 import java.util.function.Function;
@@ -28,6 +29,7 @@ public class ItemStat extends ForgeRegistryEntry<ItemStat> implements IItemStat
         UNIT, MULTIPLIER, PERCENTAGE
     }
 
+    private final int index;
     private final float defaultValue;
     private final float minimumValue;
     private final float maximumValue;
@@ -62,6 +64,7 @@ public class ItemStat extends ForgeRegistryEntry<ItemStat> implements IItemStat
             throw new IllegalArgumentException("Default value cannot be bigger than maximum value!");
         }
 
+        this.index = ItemStats.STATS_IN_ORDER.size();
         ItemStats.STATS_IN_ORDER.add(this);
     }
 
@@ -79,6 +82,17 @@ public class ItemStat extends ForgeRegistryEntry<ItemStat> implements IItemStat
         return getRegistryName();
     }
 
+    /**
+     * Gets a dense index for the stat, assigned in creation order. This matches the position of the
+     * stat in {@link ItemStats#allStatsOrdered()} and can be used to index into arrays of stat
+     * values, like {@link GearStatsView}.
+     *
+     * @return The stat index
+     */
+    public int getIndex() {
+        return index;
+    }
+
     public float getDefaultValue() {
         return defaultValue;
     }
@@ -121,75 +135,140 @@ public class ItemStat extends ForgeRegistryEntry<ItemStat> implements IItemStat
     private static final float WEIGHT_BASE_MAX = 40f;
     private static final float WEIGHT_DEVIATION_COEFF = 2f;
 
+    private static final Operation[] OPERATIONS = Operation.values();
+    private static final int OPERATION_COUNT = OPERATIONS.length;
+
+    // Weight curve exponents by modifier count, plus the weights for clamped weight bases. Most
+    // weight bases are clamped (any modifier not above the primary one), so Math.pow is rarely
+    // needed. Table values are computed with the same expression, so results are unchanged.
+    private static final int WEIGHT_TABLE_SIZE = 32;
+    private static final double[] WEIGHT_EXPONENTS = new double[WEIGHT_TABLE_SIZE];
+    private static final float[] WEIGHTS_AT_MIN_BASE = new float[WEIGHT_TABLE_SIZE];
+    private static final float[] WEIGHTS_AT_MAX_BASE = new float[WEIGHT_TABLE_SIZE];
+
+    static {
+        for (int count = 0; count < WEIGHT_TABLE_SIZE; ++count) {
+            WEIGHT_EXPONENTS[count] = -(count == 0 ? count : 0.5 + 0.5f * count);
+            WEIGHTS_AT_MIN_BASE[count] = (float) Math.pow(WEIGHT_BASE_MIN, WEIGHT_EXPONENTS[count]);
+            WEIGHTS_AT_MAX_BASE[count] = (float) Math.pow(WEIGHT_BASE_MAX, WEIGHT_EXPONENTS[count]);
+        }
+    }
+
     public float compute(float baseValue, Collection<StatInstance> modifiers) {
         return compute(baseValue, true, modifiers);
     }
 
-    @SuppressWarnings("OverlyComplexMethod")
     public float compute(float baseValue, boolean clampValue, Collection<StatInstance> modifiers) {
         if (modifiers.isEmpty())
             return baseValue;
 
+        // Sort modifiers by operation in a single pass, keeping their order
+        float[][] values = new float[OPERATION_COUNT][];
+        int[] counts = new int[OPERATION_COUNT];
+        for (StatInstance mod : modifiers) {
+            int op = mod.getOp().ordinal();
+            if (values[op] == null) {
+                values[op] = new float[modifiers.size()];
+            }
+            values[op][counts[op]++] = mod.getValue();
+        }
+
+        return compute(baseValue, clampValue, values, counts, 0);
+    }
+
+    /**
+     * Compute the value of the stat from the modifiers in an accumulator. Gives the same result as
+     * {@link #compute(float, boolean, Collection)} with the same modifiers, but without any
+     * iteration over {@link StatInstance} objects.
+     *
+     * @param baseValue  The starting value, typically the stat's default value
+     * @param clampValue Whether or not to clamp the value to the stat's range
+     * @param modifiers  The modifiers
+     * @return The computed value
+     */
+    public float compute(float baseValue, boolean clampValue, StatModifierAccumulator modifiers) {
+        if (!modifiers.has(this))
+            return baseValue;
+
+        return compute(baseValue, clampValue, modifiers.getBuckets(), modifiers.getCounts(), index * OPERATION_COUNT);
+    }
+
+    /**
+     * Computes the stat value from modifier values which are already sorted by operation. The
+     * values of operation {@code op} are the first {@code counts[offset + op.ordinal()]} elements of
+     * {@code values[offset + op.ordinal()]}.
+     */
+    private float compute(float baseValue, boolean clampValue, float[][] values, int[] counts, int offset) {
         float f0 = baseValue;
 
         // Average (weighted, used for mains)
-        f0 += getWeightedAverage(modifiers, Operation.AVG);
+        f0 += getWeightedAverage(values[offset + Operation.AVG.ordinal()], counts[offset + Operation.AVG.ordinal()]);
 
         // Maximum
-        for (StatInstance mod : modifiers)
-            if (mod.getOp() == StatInstance.Operation.MAX)
-                f0 = Math.max(f0, mod.getValue());
+        float[] mods = values[offset + Operation.MAX.ordinal()];
+        for (int i = 0; i < counts[offset + Operation.MAX.ordinal()]; ++i)
+            f0 = Math.max(f0, mods[i]);
 
         // Multiplicative
         float f1 = f0;
-        for (StatInstance mod : modifiers)
-            if (mod.getOp() == StatInstance.Operation.MUL1)
-                f1 += f0 * mod.getValue();
+        mods = values[offset + Operation.MUL1.ordinal()];
+        for (int i = 0; i < counts[offset + Operation.MUL1.ordinal()]; ++i)
+            f1 += f0 * mods[i];
 
         // Multiplicative2
-        for (StatInstance mod : modifiers)
-            if (mod.getOp() == StatInstance.Operation.MUL2)
-                f1 *= 1.0f + mod.getValue();
+        mods = values[offset + Operation.MUL2.ordinal()];
+        for (int i = 0; i < counts[offset + Operation.MUL2.ordinal()]; ++i)
+            f1 *= 1.0f + mods[i];
 
         // Additive
-        for (StatInstance mod : modifiers)
-            if (mod.getOp() == StatInstance.Operation.ADD)
-                f1 += mod.getValue();
+        mods = values[offset + Operation.ADD.ordinal()];
+        for (int i = 0; i < counts[offset + Operation.ADD.ordinal()]; ++i)
+            f1 += mods[i];
 
         return clampValue ? clampValue(f1) : f1;
     }
 
-    private static float getPrimaryMod(Iterable<StatInstance> modifiers, Operation op) {
-        float primaryMod = -1f;
+    public static float getWeightedAverage(Collection<StatInstance> modifiers, Operation op) {
+        float[] values = new float[modifiers.size()];
+        int count = 0;
         for (StatInstance mod : modifiers) {
             if (mod.getOp() == op) {
-                if (primaryMod < 0f) {
-                    primaryMod = mod.getValue();
-                }
+                values[count++] = mod.getValue();
             }
         }
-        return primaryMod > 0 ? primaryMod : 1;
+        return getWeightedAverage(values, count);
     }
 
-    public static float getWeightedAverage(Collection<StatInstance> modifiers, Operation op) {
-        float primaryMod = getPrimaryMod(modifiers, op);
+    private static float getWeightedAverage(@Nullable float[] values, int count) {
+        if (values == null || count == 0)
+            return 0;
+
+        float primaryMod = -1f;
+        for (int i = 0; i < count; ++i) {
+            if (primaryMod < 0f) {
+                primaryMod = values[i];
+            }
+        }
+        primaryMod = primaryMod > 0 ? primaryMod : 1;
+
         float ret = 0;
-        int count = 0;
         float totalWeight = 0f;
-        for (StatInstance mod : modifiers) {
-            if (mod.getOp() == op) {
-                ++count;
-                float weight = getModifierWeight(mod, primaryMod, count);
-                totalWeight += weight;
-                ret += mod.getValue() * weight;
-            }
+        for (int i = 0; i < count; ++i) {
+            float weight = getModifierWeight(values[i], primaryMod, i + 1);
+            totalWeight += weight;
+            ret += values[i] * weight;
         }
-        return count > 0 ? ret / totalWeight : ret;
+        return ret / totalWeight;
     }
 
-    private static float getModifierWeight(StatInstance mod, float primaryMod, int count) {
-        float weightBase = WEIGHT_BASE_MIN + WEIGHT_DEVIATION_COEFF * (mod.getValue() - primaryMod) / primaryMod;
+    private static float getModifierWeight(float value, float primaryMod, int count) {
+        float weightBase = WEIGHT_BASE_MIN + WEIGHT_DEVIATION_COEFF * (value - primaryMod) / primaryMod;
         float weightBaseClamped = MathHelper.clamp(weightBase, WEIGHT_BASE_MIN, WEIGHT_BASE_MAX);
+        if (count < WEIGHT_TABLE_SIZE) {
+            if (weightBaseClamped == WEIGHT_BASE_MIN) return WEIGHTS_AT_MIN_BASE[count];
+            if (weightBaseClamped == WEIGHT_BASE_MAX) return WEIGHTS_AT_MAX_BASE[count];
+            return (float) Math.pow(weightBaseClamped, WEIGHT_EXPONENTS[count]);
+        }
         return (float) Math.pow(weightBaseClamped, -(count == 0 ? count : 0.5 + 0.5f * count));
     }
 
@@ -0,0 +1,177 @@
+package net.silentchaos512.gear.api.stats;
+
+import net.silentchaos512.gear.api.stats.StatInstance.Operation;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * A dense, array-backed collection of stat modifiers, used when calculating gear stats. Modifier
+ * values are stored as primitive floats in one bucket per stat and {@link Operation}, indexed by
+ * {@link ItemStat#getIndex()}. Order is preserved within each bucket, which is all that {@link
+ * ItemStat#compute} depends on, so computed values are identical to those from a {@link
+ * StatModifierMap} with the same modifiers.
+ * <p>
+ * Use {@link #toMap()} when a {@link StatModifierMap} is needed, such as for serialization.
+ */
+public final class StatModifierAccumulator {
+    private static final Operation[] OPERATIONS = Operation.values();
+    private static final int OPERATION_COUNT = OPERATIONS.length;
+
+    private float[][] values;
+    private int[] counts;
+
+    public StatModifierAccumulator() {
+        int size = ItemStats.allStatsOrdered().size() * OPERATION_COUNT;
+        this.values = new float[size][];
+        this.counts = new int[size];
+    }
+
+    public void add(ItemStat stat, StatInstance mod) {
+        add(stat, mod.getValue(), mod.getOp());
+    }
+
+    public void add(ItemStat stat, float value, Operation op) {
+        int bucket = stat.getIndex() * OPERATION_COUNT + op.ordinal();
+        ensureCapacity(bucket + 1);
+
+        float[] array = values[bucket];
+        int count = counts[bucket];
+        if (array == null) {
+            array = new float[2];
+            values[bucket] = array;
+        } else if (count == array.length) {
+            array = Arrays.copyOf(array, count * 2);
+            values[bucket] = array;
+        }
+        array[count] = value;
+        counts[bucket] = count + 1;
+    }
+
+    public void addAll(ItemStat stat, Iterable<StatInstance> mods) {
+        for (StatInstance mod : mods) {
+            add(stat, mod);
+        }
+    }
+
+    /**
+     * Add all modifiers {@code other} has for the stat, keeping their order.
+     *
+     * @param stat  The stat
+     * @param other The modifiers to add
+     */
+    public void addAll(ItemStat stat, StatModifierAccumulator other) {
+        int offset = stat.getIndex() * OPERATION_COUNT;
+        for (int op = 0; op < OPERATION_COUNT; ++op) {
+            int count = other.getCount(offset + op);
+            if (count > 0) {
+                float[] otherValues = other.values[offset + op];
+                for (int i = 0; i < count; ++i) {
+                    add(stat, otherValues[i], OPERATIONS[op]);
+                }
+            }
+        }
+    }
+
+    public boolean has(ItemStat stat) {
+        int offset = stat.getIndex() * OPERATION_COUNT;
+        for (int op = 0; op < OPERATION_COUNT; ++op) {
+            if (getCount(offset + op) > 0) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    public boolean isEmpty() {
+        for (int count : counts) {
+            if (count > 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Gets all stats which have at least one modifier, in {@link ItemStats#allStatsOrdered()}
+     * order.
+     *
+     * @return List of stats
+     */
+    public List<ItemStat> getStats() {
+        List<ItemStat> list = new ArrayList<>();
+        for (ItemStat stat : ItemStats.allStatsOrdered()) {
+            if (has(stat)) {
+                list.add(stat);
+            }
+        }
+        return list;
+    }
+
+    /**
+     * Compute the value of the stat from the modifiers. Same as calling {@link
+     * ItemStat#compute(float, Collection)} with the stat's modifiers.
+     *
+     * @param stat      The stat
+     * @param baseValue The starting value, typically the stat's default value
+     * @return The computed and clamped value
+     */
+    public float compute(ItemStat stat, float baseValue) {
+        return stat.compute(baseValue, true, this);
+    }
+
+    // Buckets for stat index i and operation op are at i * OPERATION_COUNT + op.ordinal()
+    float[][] getBuckets() {
+        return values;
+    }
+
+    int[] getCounts() {
+        return counts;
+    }
+
+    private int getCount(int bucket) {
+        return bucket < counts.length ? counts[bucket] : 0;
+    }
+
+    private void ensureCapacity(int size) {
+        if (size > counts.length) {
+            // Stats created after this accumulator
+            int newSize = Math.max(size, ItemStats.allStatsOrdered().size() * OPERATION_COUNT);
+            values = Arrays.copyOf(values, newSize);
+            counts = Arrays.copyOf(counts, newSize);
+        }
+    }
+
+    /**
+     * Gets the modifiers for a single stat, grouped by operation.
+     *
+     * @param stat The stat
+     * @return New list of modifiers
+     */
+    public List<StatInstance> get(ItemStat stat) {
+        List<StatInstance> list = new ArrayList<>();
+        for (Operation op : OPERATIONS) {
+            int bucket = stat.getIndex() * OPERATION_COUNT + op.ordinal();
+            int count = getCount(bucket);
+            for (int i = 0; i < count; ++i) {
+                list.add(new StatInstance(values[bucket][i], op));
+            }
+        }
+        return list;
+    }
+
+    /**
+     * Convert to a {@link StatModifierMap}. Modifiers of each stat are grouped by operation.
+     *
+     * @return A new modifier map
+     */
+    public StatModifierMap toMap() {
+        StatModifierMap map = new StatModifierMap();
+        for (ItemStat stat : ItemStats.allStatsOrdered()) {
+            map.putAll(stat, get(stat));
+        }
+        return map;
+    }
+}
@@ -113,6 +113,16 @@ public interface ITrait {
 
     void onUpdate(TraitActionContext context, boolean isEquipped);
 
+    /**
+     * How often {@link #onUpdate(TraitActionContext, boolean)} is called, in ticks. Traits which
+     * do not override {@code onUpdate} are never updated, regardless of this value.
+     *
+     * @return The number of ticks between updates
+     */
+    default int getUpdateInterval() {
+        return 1;
+    }
+
     default CompoundNBT write(int level) {
         CompoundNBT tag = new CompoundNBT();
         tag.putString("Name", this.getId().toString());
@@ -7,6 +7,7 @@ import net.silentchaos512.gear.api.parts.PartType;
 import net.silentchaos512.gear.gear.material.MaterialInstance;
 
 import java.util.Collection;
+import java.util.Objects;
 
 public interface ITraitCondition {
     ResourceLocation getId();
@@ -14,4 +15,20 @@ public interface ITraitCondition {
     boolean matches(ItemStack gear, PartDataList parts, ITrait trait);
 
     boolean matches(ItemStack gear, PartType partType, Collection<MaterialInstance> materials, ITrait trait);
+
+    /**
+     * Check if the condition matches, using a context shared by all conditions checked in one trait
+     * calculation. Conditions which derive data from the parts or materials should override this
+     * and get that data from the context, so it is only computed once.
+     *
+     * @param context The parts or materials being evaluated
+     * @param trait   The trait the condition is on
+     * @return True if the condition matches
+     */
+    default boolean matches(TraitEvaluationContext context, ITrait trait) {
+        if (context.isForParts()) {
+            return matches(context.getGear(), Objects.requireNonNull(context.getParts()), trait);
+        }
+        return matches(context.getGear(), Objects.requireNonNull(context.getPartType()), Objects.requireNonNull(context.getMaterials()), trait);
+    }
 }
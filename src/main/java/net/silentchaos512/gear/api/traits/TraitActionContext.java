@@ -5,6 +5,10 @@ import net.minecraft.item.ItemStack;
 
 import javax.annotation.Nullable;
 
+/**
+ * Information passed to trait hooks. Context objects may be reused for other calls after the hook
+ * returns, so traits must not keep references to them.
+ */
 public class TraitActionContext {
     @Nullable private final PlayerEntity player;
     private final int traitLevel;
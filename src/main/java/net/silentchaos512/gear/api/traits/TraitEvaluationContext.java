@@ -0,0 +1,138 @@
+package net.silentchaos512.gear.api.traits;
+
+import it.unimi.dsi.fastutil.objects.Reference2IntMap;
+import it.unimi.dsi.fastutil.objects.Reference2IntOpenHashMap;
+import net.minecraft.item.ItemStack;
+import net.silentchaos512.gear.api.item.GearType;
+import net.silentchaos512.gear.api.parts.PartDataList;
+import net.silentchaos512.gear.api.parts.PartTraitInstance;
+import net.silentchaos512.gear.api.parts.PartType;
+import net.silentchaos512.gear.gear.material.MaterialInstance;
+import net.silentchaos512.gear.util.GearHelper;
+
+import javax.annotation.Nullable;
+import java.util.Collection;
+
+/**
+ * Everything trait conditions are evaluated against: either the parts of a gear item, or the
+ * materials of a compound part. One context is used for all conditions checked while calculating
+ * traits, and derived facts (like the number of parts with a trait) are computed only once.
+ *
+ * @see ITraitCondition#matches(TraitEvaluationContext, ITrait)
+ */
+public final class TraitEvaluationContext {
+    private final ItemStack gear;
+    @Nullable private final PartDataList parts;
+    @Nullable private final PartType partType;
+    @Nullable private final Collection<MaterialInstance> materials;
+
+    private final Reference2IntMap<ITrait> countWithTrait = new Reference2IntOpenHashMap<>();
+    private int mainPartCount = -1;
+    private boolean gearTypeLoaded;
+    @Nullable private GearType gearType;
+
+    private TraitEvaluationContext(ItemStack gear, @Nullable PartDataList parts, @Nullable PartType partType, @Nullable Collection<MaterialInstance> materials) {
+        this.gear = gear;
+        this.parts = parts;
+        this.partType = partType;
+        this.materials = materials;
+        this.countWithTrait.defaultReturnValue(-1);
+    }
+
+    public static TraitEvaluationContext forParts(ItemStack gear, PartDataList parts) {
+        return new TraitEvaluationContext(gear, parts, null, null);
+    }
+
+    public static TraitEvaluationContext forMaterials(ItemStack gear, PartType partType, Collection<MaterialInstance> materials) {
+        return new TraitEvaluationContext(gear, null, partType, materials);
+    }
+
+    public ItemStack getGear() {
+        return gear;
+    }
+
+    /**
+     * Check if this context is for the parts of a gear item. If false, the context is for the
+     * materials of a part.
+     *
+     * @return True if {@link #getParts()} is non-null
+     */
+    public boolean isForParts() {
+        return parts != null;
+    }
+
+    @Nullable
+    public PartDataList getParts() {
+        return parts;
+    }
+
+    @Nullable
+    public PartType getPartType() {
+        return partType;
+    }
+
+    @Nullable
+    public Collection<MaterialInstance> getMaterials() {
+        return materials;
+    }
+
+    /**
+     * Gets the gear type of the gear item (cached).
+     *
+     * @return The gear type, or null if the item is not gear
+     */
+    @Nullable
+    public GearType getGearType() {
+        if (!gearTypeLoaded) {
+            gearType = GearHelper.getType(gear);
+            gearTypeLoaded = true;
+        }
+        return gearType;
+    }
+
+    /**
+     * Gets the number of parts or materials being evaluated. For parts, this is the number of main
+     * parts.
+     *
+     * @return The number of main parts or materials
+     */
+    public int getCount() {
+        if (materials != null) {
+            return materials.size();
+        }
+        if (mainPartCount < 0) {
+            mainPartCount = parts != null ? parts.getMains().size() : 0;
+        }
+        return mainPartCount;
+    }
+
+    /**
+     * Gets the number of parts or materials which have the trait (cached).
+     *
+     * @param trait The trait
+     * @return The number of parts or materials with the trait
+     */
+    public int countWithTrait(ITrait trait) {
+        int count = countWithTrait.getInt(trait);
+        if (count < 0) {
+            count = parts != null ? parts.getPartsWithTrait(trait) : countMaterialsWithTrait(trait);
+            countWithTrait.put(trait, count);
+        }
+        return count;
+    }
+
+    private int countMaterialsWithTrait(ITrait trait) {
+        if (materials == null || partType == null) return 0;
+
+        int count = 0;
+        for (MaterialInstance mat : materials) {
+            for (PartTraitInstance inst : mat.getMaterial().getTraits(partType, gear)) {
+                if (inst.getTrait() == trait) {
+                    ++count;
+                    break;
+                }
+            }
+        }
+        return count;
+    }
+}
@@ -16,6 +16,7 @@ import net.silentchaos512.gear.api.stats.ItemStat;
 import net.silentchaos512.gear.api.stats.ItemStats;
 import net.silentchaos512.gear.init.NerfedGear;
 import net.silentchaos512.gear.item.blueprint.BlueprintType;
+import net.silentchaos512.gear.util.GearData;
 import net.silentchaos512.gear.util.IAOETool;
 
 import java.util.*;
@@ -49,6 +50,7 @@ public final class Config {
         public static final ForgeConfigSpec.DoubleValue repairKitSturdyEfficiency;
         public static final ForgeConfigSpec.DoubleValue repairKitCrimsonEfficiency;
         public static final ForgeConfigSpec.BooleanValue upgradesInAnvilOnly;
+        public static final ForgeConfigSpec.IntValue magneticUpdateInterval;
         private static final Map<ItemStat, ForgeConfigSpec.DoubleValue> statMultipliers = new HashMap<>();
         // Salvager
         public static final ForgeConfigSpec.DoubleValue salvagerMinLossRate;
@@ -183,6 +185,14 @@ public final class Config {
                             .define("applyInAnvilOnly", false);
                     builder.pop();
                 }
+                {
+                    builder.push("traits");
+                    magneticUpdateInterval = builder
+                            .comment("How often (in ticks) the magnetic trait searches for items to pull. Items found are pulled every tick",
+                                    "until the next search. Higher values reduce server load, but new items take longer to start moving.")
+                            .defineInRange("magnetic.updateInterval", 4, 1, 20);
+                    builder.pop();
+                }
                 {
                     builder.comment("Multipliers for stats on all gear. This allows the stats on all items to be increased or decreased",
                             "without overriding every single file.");
@@ -296,6 +306,8 @@ public final class Config {
     }
 
     public static void sync() {
+        // Stat multipliers and other settings may have changed
+        GearData.clearStatCaches();
     }
 
     @SubscribeEvent
@@ -124,7 +124,7 @@ public class UpgradeGearRecipe implements ICraftingRecipe {
                     if (!partsOfType.isEmpty()) {
                         PartData partData = partsOfType.get(0);
                         partData.onRemoveFromGear(gear);
-                        list.set(i, partData.getCraftingItem());
+                        list.set(i, partData.getCraftingItem().copy());
                     } else {
                         list.set(i, ItemStack.EMPTY);
                     }
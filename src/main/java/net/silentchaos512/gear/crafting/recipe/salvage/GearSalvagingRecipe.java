@@ -41,7 +41,7 @@ public class GearSalvagingRecipe extends SalvagingRecipe {
                         .filter(s -> !s.isEmpty())
                         .forEach(ret::add);
             } else {
-                ret.add(part.getCraftingItem());
+                ret.add(part.getCraftingItem().copy());
             }
         }
 
@@ -25,7 +25,6 @@ import net.minecraft.enchantment.Enchantments;
 import net.minecraft.entity.Entity;
 import net.minecraft.entity.EntityType;
 import net.minecraft.entity.LivingEntity;
-import net.minecraft.entity.item.ItemEntity;
 import net.minecraft.entity.passive.CatEntity;
 import net.minecraft.entity.passive.ChickenEntity;
 import net.minecraft.entity.passive.RabbitEntity;
@@ -37,22 +36,17 @@ import net.minecraft.entity.player.PlayerEntity;
 import net.minecraft.entity.player.ServerPlayerEntity;
 import net.minecraft.entity.projectile.FireworkRocketEntity;
 import net.minecraft.inventory.EquipmentSlotType;
-import net.minecraft.inventory.Inventory;
 import net.minecraft.item.DyeColor;
 import net.minecraft.item.FireworkRocketItem;
 import net.minecraft.item.ItemStack;
 import net.minecraft.item.Items;
-import net.minecraft.item.crafting.FurnaceRecipe;
-import net.minecraft.item.crafting.IRecipeType;
 import net.minecraft.nbt.CompoundNBT;
 import net.minecraft.nbt.IntNBT;
 import net.minecraft.nbt.ListNBT;
 import net.minecraft.util.DamageSource;
 import net.minecraft.util.ResourceLocation;
 import net.minecraft.util.Util;
-import net.minecraft.util.math.AxisAlignedBB;
 import net.minecraft.util.math.BlockPos;
-import net.minecraft.util.math.vector.Vector3d;
 import net.minecraft.world.IBlockDisplayReader;
 import net.minecraft.world.LightType;
 import net.minecraft.world.World;
@@ -75,7 +69,6 @@ import net.silentchaos512.gear.api.item.ICoreItem;
 import net.silentchaos512.gear.api.item.ICoreTool;
 import net.silentchaos512.gear.api.parts.PartDataList;
 import net.silentchaos512.gear.api.parts.PartType;
-import net.silentchaos512.gear.api.traits.TraitActionContext;
 import net.silentchaos512.gear.gear.material.MaterialInstance;
 import net.silentchaos512.gear.item.CompoundPartItem;
 import net.silentchaos512.gear.parts.PartConst;
@@ -125,8 +118,7 @@ public final class GearEvents {
         if (!(weapon.getItem() instanceof ICoreTool)) return;
 
         final float baseDamage = event.getAmount();
-        final float newDamage = TraitHelper.activateTraits(weapon, baseDamage, (trait, level, value) ->
-                trait.onAttackEntity(new TraitActionContext(player, level, weapon), attacked, baseDamage));
+        final float newDamage = TraitHelper.onAttackEntity(weapon, player, attacked, baseDamage);
 
         if (Math.abs(newDamage - baseDamage) > 0.0001f) {
             event.setCanceled(true);
@@ -185,7 +177,7 @@ public final class GearEvents {
             final boolean canHarvest = toolLevel >= blockLevel;
 
             if (canHarvest) {
-                int level = TraitHelper.getTraitLevel(tool, TraitConst.LUSTROUS);
+                int level = TraitHelper.getTraitLevel(player, EquipmentSlotType.MAINHAND, TraitConst.LUSTROUS);
                 int light = getLightForLustrousTrait(player.world, player.func_233580_cy_());
                 event.setNewSpeed(event.getOriginalSpeed() + getLustrousSpeedBonus(level, light));
             }
@@ -224,15 +216,12 @@ public final class GearEvents {
             ServerWorld world = ((ServerPlayerEntity) harvester).getServerWorld();
 
             // Magmatic smelting
-            Optional<FurnaceRecipe> recipe = world.getRecipeManager().getRecipe(IRecipeType.SMELTING, new Inventory(stack), world);
-            if (recipe.isPresent()) {
-                ItemStack smelted = recipe.get().getRecipeOutput();
-                if (!smelted.isEmpty()) {
-                    ItemStack copy = smelted.copy();
-                    copy.setCount(stack.getCount());
-                    event.getDrops().remove(i);
-                    event.getDrops().add(i, copy);
-                }
+            ItemStack smelted = SmeltingResultCache.getResult(stack, world);
+            if (!smelted.isEmpty()) {
+                ItemStack copy = smelted.copy();
+                copy.setCount(stack.getCount());
+                event.getDrops().remove(i);
+                event.getDrops().add(i, copy);
             }
         }
     }
@@ -244,7 +233,7 @@ public final class GearEvents {
         ItemStack tool = event.getAttackingPlayer().getHeldItemMainhand();
         if (tool.isEmpty() || !(tool.getItem() instanceof ICoreTool)) return;
 
-        int ancientLevel = TraitHelper.getTraitLevel(tool, TraitConst.ANCIENT);
+        int ancientLevel = TraitHelper.getTraitLevel(event.getAttackingPlayer(), EquipmentSlotType.MAINHAND, TraitConst.ANCIENT);
         if (ancientLevel == 0) return;
 
         int bonusXp = (int) (event.getOriginalExperience() * TraitConst.ANCIENT_XP_BOOST * ancientLevel);
@@ -268,7 +257,7 @@ public final class GearEvents {
         ItemStack tool = event.getPlayer().getHeldItemMainhand();
         if (tool.isEmpty() || !(tool.getItem() instanceof ICoreTool)) return;
 
-        int ancientLevel = TraitHelper.getTraitLevel(tool, TraitConst.ANCIENT);
+        int ancientLevel = TraitHelper.getTraitLevel(event.getPlayer(), EquipmentSlotType.MAINHAND, TraitConst.ANCIENT);
         if (ancientLevel > 0) {
             int bonusXp = (int) (event.getExpToDrop() * TraitConst.ANCIENT_XP_BOOST * ancientLevel);
             event.setExpToDrop(event.getExpToDrop() + bonusXp);
@@ -366,27 +355,4 @@ public final class GearEvents {
         nbt.put("Explosions", explosions);
         return ret;
     }
-
-    @SubscribeEvent
-    public static void onPlayerTick(TickEvent.PlayerTickEvent event) {
-        if (!event.player.world.isRemote) {
-            int magnetic = TraitHelper.getHighestLevelEitherHand(event.player, TraitConst.MAGNETIC);
-            if (magnetic > 0) {
-                final int range = magnetic * 3 + 1;
-                Vector3d target = new Vector3d(event.player.getPosX(), event.player.getPosYHeight(0.5), event.player.getPosZ());
-
-                AxisAlignedBB aabb = new AxisAlignedBB(event.player.getPosX() - range, event.player.getPosY() - range, event.player.getPosZ() - range, event.player.getPosX() + range + 1, event.player.getPosY() + range + 1, event.player.getPosZ() + range + 1);
-                for (ItemEntity entity : event.player.world.getEntitiesWithinAABB(ItemEntity.class, aabb, e -> e.getDistanceSq(event.player) < range * range)) {
-                    // Accelerate to target point
-                    Vector3d vec = entity.func_230268_c_(event.player).subtractReverse(target);
-                    vec = vec.normalize().scale(0.03);
-                    if (entity.getPosY() < target.y) {
-                        double xzDistanceSq = (entity.getPosX() - target.x) * (entity.getPosX() - target.x) + (entity.getPosZ() - target.z) * (entity.getPosZ() - target.z);
-                        vec = vec.add(0, 0.005 + xzDistanceSq / 1000, 0);
-                    }
-                    entity.addVelocity(vec.x, vec.y, vec.z);
-                }
-            }
-        }
-    }
 }
@@ -0,0 +1,167 @@
+package net.silentchaos512.gear.event;
+
+import net.minecraft.entity.item.ItemEntity;
+import net.minecraft.entity.player.PlayerEntity;
+import net.minecraft.util.math.AxisAlignedBB;
+import net.minecraft.util.math.ChunkPos;
+import net.minecraft.util.math.MathHelper;
+import net.minecraft.util.math.vector.Vector3d;
+import net.minecraft.world.World;
+import net.minecraftforge.event.TickEvent;
+import net.minecraftforge.eventbus.api.SubscribeEvent;
+import net.minecraftforge.fml.common.Mod;
+import net.minecraftforge.fml.event.server.FMLServerStoppingEvent;
+import net.silentchaos512.gear.SilentGear;
+import net.silentchaos512.gear.config.Config;
+import net.silentchaos512.gear.traits.TraitConst;
+import net.silentchaos512.gear.util.TraitHelper;
+
+import java.util.*;
+
+/**
+ * Handles the magnetic trait. Players holding magnetic gear are collected during player ticks, then
+ * nearby items are found in one batch at the end of the server tick, every few ticks (see {@link
+ * Config.Common#magneticUpdateInterval}). The tick is chosen by area, so players in the same area
+ * are collected together and share a single entity query. The items found are pulled every tick
+ * until the player's next query, so movement is as smooth as before. Items pulled by more than one
+ * player only have their velocity changed once per tick.
+ */
+@Mod.EventBusSubscriber(modid = SilentGear.MOD_ID)
+public final class MagneticTraitHandler {
+    // Players are grouped into cells of this size (in blocks) for entity queries
+    private static final int CELL_SHIFT = 5;
+
+    private static final List<Magnet> PENDING = new ArrayList<>();
+    private static final Map<PlayerEntity, Magnet> ACTIVE = new HashMap<>();
+
+    private MagneticTraitHandler() {}
+
+    @SubscribeEvent
+    public static void onPlayerTick(TickEvent.PlayerTickEvent event) {
+        if (event.phase != TickEvent.Phase.END || event.player.world.isRemote) return;
+
+        // Spread areas over different ticks, but keep players in the same area together
+        int interval = Config.Common.magneticUpdateInterval.get();
+        long gameTime = event.player.world.getGameTime();
+        long cellKey = getCellKey(event.player.getPosX(), event.player.getPosZ());
+        if (Math.floorMod(gameTime + Long.hashCode(cellKey), interval) != 0) return;
+
+        int magnetic = TraitHelper.getHighestLevelEitherHand(event.player, TraitConst.MAGNETIC);
+        if (magnetic > 0) {
+            // Kept for two intervals, in case the player moves to a cell which is queried later
+            PENDING.add(new Magnet(event.player, magnetic * 3 + 1, gameTime + 2 * interval));
+        } else {
+            ACTIVE.remove(event.player);
+        }
+    }
+
+    @SubscribeEvent
+    public static void onServerTick(TickEvent.ServerTickEvent event) {
+        if (event.phase != TickEvent.Phase.END) return;
+
+        if (!PENDING.isEmpty()) {
+            findItems();
+        }
+        if (!ACTIVE.isEmpty()) {
+            pullItems();
+        }
+    }
+
+    @SubscribeEvent
+    public static void onServerStopping(FMLServerStoppingEvent event) {
+        PENDING.clear();
+        ACTIVE.clear();
+    }
+
+    private static void findItems() {
+        // Group by world and area
+        Map<World, Map<Long, List<Magnet>>> cells = new HashMap<>();
+        for (Magnet magnet : PENDING) {
+            long cellKey = getCellKey(magnet.player.getPosX(), magnet.player.getPosZ());
+            cells.computeIfAbsent(magnet.player.world, w -> new HashMap<>())
+                    .computeIfAbsent(cellKey, k -> new ArrayList<>())
+                    .add(magnet);
+        }
+        PENDING.clear();
+
+        cells.forEach((world, worldCells) -> worldCells.values().forEach(magnets -> {
+            AxisAlignedBB aabb = magnets.get(0).getBoundingBox();
+            for (int i = 1; i < magnets.size(); ++i) {
+                aabb = aabb.union(magnets.get(i).getBoundingBox());
+            }
+
+            List<ItemEntity> entities = world.getEntitiesWithinAABB(ItemEntity.class, aabb);
+            for (Magnet magnet : magnets) {
+                for (ItemEntity entity : entities) {
+                    if (magnet.isInRange(entity)) {
+                        magnet.items.add(entity);
+                    }
+                }
+                ACTIVE.put(magnet.player, magnet);
+            }
+        }));
+    }
+
+    private static void pullItems() {
+        // Sum the pull of all players on each item, so its velocity is only updated once
+        Map<ItemEntity, Vector3d> pulls = new HashMap<>();
+        Iterator<Magnet> iterator = ACTIVE.values().iterator();
+        while (iterator.hasNext()) {
+            Magnet magnet = iterator.next();
+            if (magnet.player.removed || magnet.player.world.getGameTime() >= magnet.expireTime) {
+                iterator.remove();
+                continue;
+            }
+
+            Vector3d target = magnet.getTarget();
+            for (ItemEntity entity : magnet.items) {
+                if (entity.isAlive() && entity.world == magnet.player.world && magnet.isInRange(entity)) {
+                    pulls.merge(entity, magnet.getPull(entity, target), Vector3d::add);
+                }
+            }
+        }
+
+        pulls.forEach((entity, vec) -> entity.addVelocity(vec.x, vec.y, vec.z));
+    }
+
+    private static long getCellKey(double x, double z) {
+        return ChunkPos.asLong(MathHelper.floor(x) >> CELL_SHIFT, MathHelper.floor(z) >> CELL_SHIFT);
+    }
+
+    private static final class Magnet {
+        private final PlayerEntity player;
+        private final int range;
+        private final long expireTime;
+        private final List<ItemEntity> items = new ArrayList<>();
+
+        private Magnet(PlayerEntity player, int range, long expireTime) {
+            this.player = player;
+            this.range = range;
+            this.expireTime = expireTime;
+        }
+
+        private AxisAlignedBB getBoundingBox() {
+            return new AxisAlignedBB(player.getPosX() - range, player.getPosY() - range, player.getPosZ() - range, player.getPosX() + range + 1, player.getPosY() + range + 1, player.getPosZ() + range + 1);
+        }
+
+        private boolean isInRange(ItemEntity entity) {
+            return entity.getDistanceSq(player) < range * range;
+        }
+
+        private Vector3d getTarget() {
+            return new Vector3d(player.getPosX(), player.getPosYHeight(0.5), player.getPosZ());
+        }
+
+        private Vector3d getPull(ItemEntity entity, Vector3d target) {
+            // Accelerate to target point
+            Vector3d vec = entity.func_230268_c_(player).subtractReverse(target);
+            vec = vec.normalize().scale(0.03);
+            if (entity.getPosY() < target.y) {
+                double xzDistanceSq = (entity.getPosX() - target.x) * (entity.getPosX() - target.x) + (entity.getPosZ() - target.z) * (entity.getPosZ() - target.z);
+                vec = vec.add(0, 0.005 + xzDistanceSq / 1000, 0);
+            }
+            // Pulls used to be applied in both phases of every player tick
+            return vec.scale(2);
+        }
+    }
+}
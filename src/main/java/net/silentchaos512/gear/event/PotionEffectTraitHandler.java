@@ -0,0 +1,125 @@
+package net.silentchaos512.gear.event;
+
+import it.unimi.dsi.fastutil.objects.Object2IntMap;
+import it.unimi.dsi.fastutil.objects.Object2IntOpenHashMap;
+import net.minecraft.entity.player.PlayerEntity;
+import net.minecraft.potion.Effect;
+import net.minecraft.potion.EffectInstance;
+import net.minecraft.potion.Effects;
+import net.minecraft.util.ResourceLocation;
+import net.minecraftforge.event.TickEvent;
+import net.minecraftforge.eventbus.api.SubscribeEvent;
+import net.minecraftforge.fml.common.Mod;
+import net.silentchaos512.gear.SilentGear;
+import net.silentchaos512.gear.traits.PotionEffectTrait;
+import net.silentchaos512.gear.util.TraitHelper;
+
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Applies effects from potion effect traits (see {@link PotionEffectTrait}). Effects requested by
+ * all of a player's gear during the player's tick are merged, then applied at the end of the tick.
+ * An effect is only applied if the player does not already have it at the same or a higher level
+ * with enough time left, so effect packets are not sent every update. Armor piece counts are also
+ * computed only once per trait during each tick.
+ */
+@Mod.EventBusSubscriber(modid = SilentGear.MOD_ID)
+public final class PotionEffectTraitHandler {
+    // Night vision starts flickering when it has this many ticks left
+    private static final int NIGHT_VISION_FLICKER_TIME = 200;
+
+    private static final Map<PlayerEntity, Plan> PLANS = new HashMap<>();
+
+    private PotionEffectTraitHandler() {}
+
+    /**
+     * Gets the number of armor pieces the player is wearing with the trait. The result is reused
+     * for the rest of the player's tick.
+     *
+     * @param player  The player
+     * @param traitId The trait ID
+     * @return The number of armor pieces with the trait, zero to four
+     */
+    public static int getArmorPieceCount(PlayerEntity player, ResourceLocation traitId) {
+        Object2IntMap<ResourceLocation> pieceCounts = getPlan(player).pieceCounts;
+        int count = pieceCounts.getInt(traitId);
+        if (count < 0) {
+            count = TraitHelper.getArmorPieceCount(player, traitId);
+            pieceCounts.put(traitId, count);
+        }
+        return count;
+    }
+
+    /**
+     * Request an effect for the player. Applied at the end of the player's tick, if needed.
+     *
+     * @param player      The player
+     * @param effect      The effect to apply
+     * @param refreshTime Reapply the effect if it has no more than this many ticks left
+     */
+    public static void addEffect(PlayerEntity player, EffectInstance effect, int refreshTime) {
+        getPlan(player).effects.merge(effect.getPotion(), new Request(effect, refreshTime), Request::merge);
+    }
+
+    private static Plan getPlan(PlayerEntity player) {
+        return PLANS.computeIfAbsent(player, p -> new Plan());
+    }
+
+    @SubscribeEvent
+    public static void onPlayerTick(TickEvent.PlayerTickEvent event) {
+        if (event.phase != TickEvent.Phase.END || event.player.world.isRemote) return;
+
+        Plan plan = PLANS.remove(event.player);
+        if (plan != null) {
+            plan.effects.values().forEach(request -> request.apply(event.player));
+        }
+    }
+
+    @SubscribeEvent
+    public static void onServerTick(TickEvent.ServerTickEvent event) {
+        // Discard requests made outside of player ticks
+        if (event.phase == TickEvent.Phase.END && !PLANS.isEmpty()) {
+            PLANS.clear();
+        }
+    }
+
+    private static final class Plan {
+        private final Map<Effect, Request> effects = new LinkedHashMap<>();
+        private final Object2IntMap<ResourceLocation> pieceCounts = new Object2IntOpenHashMap<>();
+
+        private Plan() {
+            pieceCounts.defaultReturnValue(-1);
+        }
+    }
+
+    private static final class Request {
+        private final EffectInstance effect;
+        private final int refreshTime;
+
+        private Request(EffectInstance effect, int refreshTime) {
+            this.effect = effect;
+            this.refreshTime = effect.getPotion() == Effects.NIGHT_VISION
+                    ? refreshTime + NIGHT_VISION_FLICKER_TIME
+                    : refreshTime;
+        }
+
+        private static Request merge(Request a, Request b) {
+            // Keep the strongest effect, then the longest
+            if (a.effect.getAmplifier() != b.effect.getAmplifier()) {
+                return a.effect.getAmplifier() > b.effect.getAmplifier() ? a : b;
+            }
+            return a.effect.getDuration() >= b.effect.getDuration() ? a : b;
+        }
+
+        private void apply(PlayerEntity player) {
+            EffectInstance current = player.getActivePotionEffect(effect.getPotion());
+            if (current == null
+                    || current.getAmplifier() < effect.getAmplifier()
+                    || (current.getAmplifier() == effect.getAmplifier() && current.getDuration() <= refreshTime)) {
+                player.addPotionEffect(effect);
+            }
+        }
+    }
+}
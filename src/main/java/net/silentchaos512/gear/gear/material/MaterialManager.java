@@ -19,11 +19,16 @@ import net.minecraft.util.text.TextFormatting;
 import net.minecraftforge.common.crafting.CraftingHelper;
 import net.minecraftforge.fml.network.NetworkEvent;
 import net.silentchaos512.gear.SilentGear;
+import net.silentchaos512.gear.api.item.GearType;
 import net.silentchaos512.gear.api.material.IMaterial;
 import net.silentchaos512.gear.api.parts.IGearPart;
+import net.silentchaos512.gear.api.parts.PartType;
 import net.silentchaos512.gear.network.SyncMaterialsPacket;
 import net.silentchaos512.gear.parts.PartConst;
+import net.silentchaos512.gear.parts.PartData;
 import net.silentchaos512.gear.parts.PartManager;
+import net.silentchaos512.gear.util.GearData;
+import net.silentchaos512.gear.util.IngredientIndex;
 import org.apache.commons.io.IOUtils;
 import org.apache.logging.log4j.Marker;
 import org.apache.logging.log4j.MarkerManager;
@@ -32,8 +37,8 @@ import javax.annotation.Nullable;
 import java.io.IOException;
 import java.nio.charset.StandardCharsets;
 import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.function.Supplier;
-import java.util.stream.Collectors;
 
 @SuppressWarnings("deprecation")
 public class MaterialManager implements IResourceManagerReloadListener {
@@ -42,8 +47,10 @@ public class MaterialManager implements IResourceManagerReloadListener {
     public static final Marker MARKER = MarkerManager.getMarker("MaterialManager");
 
     private static final String DATA_PATH = "silentgear_materials";
-    private static final Map<ResourceLocation, IMaterial> MAP = Collections.synchronizedMap(new LinkedHashMap<>());
     private static final Collection<String> ERROR_LIST = new ArrayList<>();
+    private static int dataHash;
+    // Replaced (never modified) on reload and sync, so reads need no locking
+    private static volatile Snapshot snapshot = new Snapshot(0, ImmutableMap.of());
 
     @Override
     public void onResourceManagerReload(IResourceManager resourceManager) {
@@ -51,10 +58,11 @@ public class MaterialManager implements IResourceManagerReloadListener {
         Collection<ResourceLocation> resources = resourceManager.getAllResourceLocations(DATA_PATH, s -> s.endsWith(".json"));
         if (resources.isEmpty()) return;
 
-        synchronized (MAP) {
-            MAP.clear();
+        synchronized (INSTANCE) {
+            Map<ResourceLocation, IMaterial> map = new LinkedHashMap<>();
             ERROR_LIST.clear();
             SilentGear.LOGGER.info(MARKER, "Reloading material files");
+            int hash = 0;
 
             for (ResourceLocation id : resources) {
                 String path = id.getPath().substring(DATA_PATH.length() + 1, id.getPath().length() - ".json".length());
@@ -69,8 +77,9 @@ public class MaterialManager implements IResourceManagerReloadListener {
                     } else if (!CraftingHelper.processConditions(json, "conditions")) {
                         SilentGear.LOGGER.info(MARKER, "Skipping loading material {} as its conditions were not met", name);
                     } else {
+                        hash += 31 * name.hashCode() + json.hashCode();
                         IMaterial material = MaterialSerializers.deserialize(name, packName, json);
-                        MAP.put(material.getId(), material);
+                        map.put(material.getId(), material);
                     }
                 } catch (IllegalArgumentException | JsonParseException ex) {
                     SilentGear.LOGGER.error(MARKER, "Parsing error loading material {}", name, ex);
@@ -80,7 +89,20 @@ public class MaterialManager implements IResourceManagerReloadListener {
                     ERROR_LIST.add(String.format("%s (%s)", name, packName));
                 }
             }
+            dataHash = hash;
+            publish(map);
         }
+        GearData.clearStatCaches();
+    }
+
+    /**
+     * Gets a hash of the contents of all loaded material files. This changes when the files are changed,
+     * but is the same after a restart with the same data.
+     *
+     * @return The data hash
+     */
+    public static int getDataHash() {
+        return dataHash;
     }
 
     private static boolean isBuiltInPart(IGearPart part) {
@@ -88,58 +110,79 @@ public class MaterialManager implements IResourceManagerReloadListener {
         return example == null || part.getPackName().equals(example.getPackName());
     }
 
+    /**
+     * Gets the currently loaded materials. The snapshot never changes; a new one replaces it when
+     * materials are reloaded or synced.
+     *
+     * @return The current snapshot
+     */
+    public static Snapshot getSnapshot() {
+        return snapshot;
+    }
+
+    private static void publish(Map<ResourceLocation, IMaterial> map) {
+        synchronized (INSTANCE) {
+            snapshot = new Snapshot(snapshot.generation + 1, map);
+        }
+        PartData.invalidateSubstituteIndex();
+    }
+
     public static List<IMaterial> getValues() {
-        return getValues(true);
+        return snapshot.values;
     }
 
     public static List<IMaterial> getValues(boolean includeChildren) {
-        synchronized (MAP) {
-            return MAP.values().stream()
-                    .filter(m -> includeChildren || m.getParent() == null)
-                    .collect(Collectors.toList());
-        }
+        Snapshot current = snapshot;
+        return includeChildren ? current.values : current.getNonChildren();
     }
 
     public static List<IMaterial> getChildren(IMaterial material) {
-        synchronized (MAP) {
-            return MAP.values().stream()
-                    .filter(m -> m.getParent() == material)
-                    .collect(Collectors.toList());
-        }
+        return snapshot.getChildren(material);
     }
 
     @Nullable
     public static IMaterial get(@Nullable ResourceLocation id) {
         if (id == null) return null;
-
-        synchronized (MAP) {
-            return MAP.get(id);
-        }
+        return snapshot.byId.get(id);
     }
 
     @Nullable
     public static IMaterial from(ItemStack stack) {
         if (stack.isEmpty()) return null;
+        return getItemIndex().getFirstMatch(stack);
+    }
 
-        for (IMaterial material : getValues()) {
-            if (material.getIngredient().test(stack)) {
-                return material;
-            }
+    private static IngredientIndex<IMaterial> getItemIndex() {
+        Snapshot current = snapshot;
+        IngredientIndex<IMaterial> index = current.itemIndex;
+        if (index == null || !index.isValid()) {
+            index = IngredientIndex.build(current.values, IMaterial::getIngredient);
+            current.itemIndex = index;
         }
+        return index;
+    }
 
-        return null;
+    /**
+     * Discards the item to material and part substitute indices. Call this if material
+     * ingredients or part substitutes are changed.
+     */
+    public static void invalidateItemIndex() {
+        snapshot.itemIndex = null;
+        PartData.invalidateSubstituteIndex();
     }
 
     public static void handleSyncPacket(SyncMaterialsPacket msg, Supplier<NetworkEvent.Context> ctx) {
-        synchronized (MAP) {
-            Map<ResourceLocation, IMaterial> oldMaterials = ImmutableMap.copyOf(MAP);
-            MAP.clear();
+        synchronized (INSTANCE) {
+            Map<ResourceLocation, IMaterial> oldMaterials = snapshot.byId;
+            Map<ResourceLocation, IMaterial> map = new LinkedHashMap<>();
             msg.getMaterials().forEach(mat -> {
                 mat.retainData(oldMaterials.get(mat.getId()));
-                MAP.put(mat.getId(), mat);
+                map.put(mat.getId(), mat);
             });
-            SilentGear.LOGGER.info("Read {} materials from server", MAP.size());
+            publish(map);
+            SilentGear.LOGGER.info("Read {} materials from server", map.size());
         }
+        GearData.clearStatCaches();
         ctx.get().setPacketHandled(true);
     }
 
@@ -154,4 +197,138 @@ public class MaterialManager implements IResourceManagerReloadListener {
         }
         return ImmutableList.of();
     }
+
+    /**
+     * An immutable view of the loaded materials. Views which depend on parent materials are built
+     * on first use, since parents are looked up through the current snapshot.
+     */
+    public static final class Snapshot {
+        private final int generation;
+        private final Map<ResourceLocation, IMaterial> byId;
+        private final List<IMaterial> values;
+        @Nullable private volatile List<IMaterial> nonChildren;
+        @Nullable private volatile Map<IMaterial, List<IMaterial>> children;
+        private final Map<CraftableKey, List<IMaterial>> craftable = new ConcurrentHashMap<>();
+        // Built on first use, and again if material ingredients or item tags change
+        @Nullable private volatile IngredientIndex<IMaterial> itemIndex;
+
+        private Snapshot(int generation, Map<ResourceLocation, IMaterial> map) {
+            this.generation = generation;
+            this.byId = ImmutableMap.copyOf(map);
+            this.values = ImmutableList.copyOf(map.values());
+        }
+
+        /**
+         * Gets the generation of the snapshot, which increases every time materials are reloaded
+         * or synced. Useful as a cache key.
+         *
+         * @return The generation
+         */
+        public int getGeneration() {
+            return generation;
+        }
+
+        @Nullable
+        public IMaterial get(ResourceLocation id) {
+            return byId.get(id);
+        }
+
+        /**
+         * Gets all materials, in load order.
+         *
+         * @return Immutable list of materials
+         */
+        public List<IMaterial> getValues() {
+            return values;
+        }
+
+        /**
+         * Gets all materials which do not have a parent, in load order.
+         *
+         * @return Immutable list of materials
+         */
+        public List<IMaterial> getNonChildren() {
+            List<IMaterial> list = nonChildren;
+            if (list == null) {
+                list = values.stream()
+                        .filter(m -> m.getParent() == null)
+                        .collect(ImmutableList.toImmutableList());
+                nonChildren = list;
+            }
+            return list;
+        }
+
+        /**
+         * Gets the materials whose parent is {@code material}, in load order.
+         *
+         * @param material The parent material
+         * @return Immutable list of child materials
+         */
+        public List<IMaterial> getChildren(IMaterial material) {
+            Map<IMaterial, List<IMaterial>> map = children;
+            if (map == null) {
+                Map<IMaterial, ImmutableList.Builder<IMaterial>> builders = new IdentityHashMap<>();
+                for (IMaterial mat : values) {
+                    IMaterial parent = mat.getParent();
+                    if (parent != null) {
+                        builders.computeIfAbsent(parent, p -> ImmutableList.builder()).add(mat);
+                    }
+                }
+                map = new IdentityHashMap<>();
+                for (Map.Entry<IMaterial, ImmutableList.Builder<IMaterial>> entry : builders.entrySet()) {
+                    map.put(entry.getKey(), entry.getValue().build());
+                }
+                children = map;
+            }
+            return map.getOrDefault(material, ImmutableList.of());
+        }
+
+        /**
+         * Gets the materials which can be used to craft the part type for the gear type, in load
+         * order. Each list is built on first use.
+         *
+         * @param partType        The part type
+         * @param gearType        The gear type
+         * @param tier            The material tier (for the part type), or -1 for any tier
+         * @param includeChildren Whether to include materials with a parent
+         * @return Immutable list of materials
+         */
+        public List<IMaterial> getCraftableMaterials(PartType partType, GearType gearType, int tier, boolean includeChildren) {
+            CraftableKey key = new CraftableKey(partType, gearType, Math.max(tier, -1), includeChildren);
+            return craftable.computeIfAbsent(key, k -> (k.includeChildren ? values : getNonChildren()).stream()
+                    .filter(m -> k.tier < 0 || k.tier == m.getTier(k.partType))
+                    .filter(m -> m.allowedInPart(k.partType) && m.isCraftingAllowed(k.partType, k.gearType))
+                    .collect(ImmutableList.toImmutableList()));
+        }
+    }
+
+    private static final class CraftableKey {
+        private final PartType partType;
+        private final GearType gearType;
+        private final int tier;
+        private final boolean includeChildren;
+
+        private CraftableKey(PartType partType, GearType gearType, int tier, boolean includeChildren) {
+            this.partType = partType;
+            this.gearType = gearType;
+            this.tier = tier;
+            this.includeChildren = includeChildren;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) return true;
+            if (o == null || getClass() != o.getClass()) return false;
+            CraftableKey other = (CraftableKey) o;
+            return tier == other.tier
+                    && includeChildren == other.includeChildren
+                    && partType.equals(other.partType)
+                    && gearType.equals(other.gearType);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(partType, gearType, tier, includeChildren);
+        }
+    }
 }
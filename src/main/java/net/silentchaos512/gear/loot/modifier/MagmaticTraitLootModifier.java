@@ -1,16 +1,14 @@
 package net.silentchaos512.gear.loot.modifier;
 
 import com.google.gson.JsonObject;
-import net.minecraft.inventory.Inventory;
 import net.minecraft.item.ItemStack;
-import net.minecraft.item.crafting.FurnaceRecipe;
-import net.minecraft.item.crafting.IRecipeType;
 import net.minecraft.loot.LootContext;
 import net.minecraft.loot.conditions.ILootCondition;
 import net.minecraft.util.ResourceLocation;
 import net.minecraftforge.common.loot.GlobalLootModifierSerializer;
 import net.minecraftforge.common.loot.LootModifier;
 import net.minecraftforge.items.ItemHandlerHelper;
+import net.silentchaos512.gear.util.SmeltingResultCache;
 
 import javax.annotation.Nonnull;
 import java.util.ArrayList;
@@ -34,11 +32,9 @@ public class MagmaticTraitLootModifier extends LootModifier {
     }
 
     private static ItemStack smelt(ItemStack stack, LootContext context) {
-        return context.getWorld().getRecipeManager().getRecipe(IRecipeType.SMELTING, new Inventory(stack), context.getWorld())
-                .map(FurnaceRecipe::getRecipeOutput)
-                .filter(s -> !s.isEmpty())
-                .map(s -> ItemHandlerHelper.copyStackWithSize(s, stack.getCount() * s.getCount()))
-                .orElse(stack);
+        ItemStack smelted = SmeltingResultCache.getResult(stack, context.getWorld());
+        if (smelted.isEmpty()) return stack;
+        return ItemHandlerHelper.copyStackWithSize(smelted, stack.getCount() * smelted.getCount());
     }
 
     public static class Serializer extends GlobalLootModifierSerializer<MagmaticTraitLootModifier> {
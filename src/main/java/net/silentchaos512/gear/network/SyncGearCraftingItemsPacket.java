@@ -57,6 +57,7 @@ public class SyncGearCraftingItemsPacket {
                 ((AbstractGearPart) part).updateCraftingItems(ingredient);
             }
         });
+        PartManager.invalidateItemIndex();
         context.get().setPacketHandled(true);
     }
 }
@@ -1,11 +1,17 @@
 package net.silentchaos512.gear.parts;
 
 import net.minecraft.inventory.CraftingInventory;
+import net.minecraft.item.Item;
 import net.minecraft.item.ItemStack;
+import net.minecraft.item.Items;
 import net.minecraft.item.crafting.Ingredient;
 import net.minecraft.nbt.CompoundNBT;
+import net.minecraft.nbt.INBT;
+import net.minecraft.nbt.ListNBT;
 import net.minecraft.util.ResourceLocation;
 import net.minecraft.util.text.ITextComponent;
+import net.minecraftforge.registries.ForgeRegistries;
+import net.silentchaos512.gear.SilentGear;
 import net.silentchaos512.gear.api.item.GearType;
 import net.silentchaos512.gear.api.material.IMaterial;
 import net.silentchaos512.gear.api.parts.*;
@@ -14,6 +20,8 @@ import net.silentchaos512.gear.api.stats.StatInstance;
 import net.silentchaos512.gear.gear.material.MaterialInstance;
 import net.silentchaos512.gear.gear.material.MaterialManager;
 import net.silentchaos512.gear.item.CompoundPartItem;
+import net.silentchaos512.gear.util.IngredientIndex;
+import net.silentchaos512.utils.EnumUtils;
 
 import javax.annotation.Nonnull;
 import javax.annotation.Nullable;
@@ -23,8 +31,21 @@ public final class PartData implements IPartData {
     private static final Map<ResourceLocation, PartData> CACHE_UNGRADED_PARTS = new HashMap<>();
     public static final String NBT_ID = "ID";
 
+    // Compact format keys. Part, item, and material IDs are stored without the silentgear
+    // namespace, and nested item and material compounds are omitted. Material entries store the
+    // material ID, the item ID, and the grade ordinal (omitted if ungraded).
+    private static final String NBT_COMPACT_PART = "P";
+    private static final String NBT_COMPACT_ITEM = "I";
+    private static final String NBT_COMPACT_MATERIALS = "M";
+    private static final String NBT_COMPACT_GRADE = "G";
+    private static final String NBT_MATERIALS = "Materials";
+
+    // Material part substitutes by item. Built on first use after materials change.
+    @Nullable private static volatile IngredientIndex<PartSubstitute> substituteIndex;
+
     private final IGearPart part;
     private final ItemStack craftingItem;
+    @Nullable private List<MaterialInstance> materials;
 
     private PartData(IGearPart part) {
         this(part, ItemStack.EMPTY);
@@ -80,25 +101,63 @@ public final class PartData implements IPartData {
 
     @Nullable
     private static PartData fromMaterialSubstitute(ItemStack stack) {
-        for (IMaterial material : MaterialManager.getValues()) {
-            if (material.hasPartSubstitutes()) {
-                for (PartType partType : PartType.getValues()) {
-                    Optional<Ingredient> ingredient = material.getPartSubstitute(partType);
-
-                    if (ingredient.isPresent() && ingredient.get().test(stack)) {
+        PartSubstitute substitute = getSubstituteIndex().getFirstMatch(stack);
+        if (substitute == null) return null;
+
+        // TODO: Item will likely not salvage correctly
+        return PartData.from(substitute.getResult());
+    }
+
+    private static IngredientIndex<PartSubstitute> getSubstituteIndex() {
+        IngredientIndex<PartSubstitute> index = substituteIndex;
+        if (index == null || !index.isValid()) {
+            // Same order as checking every part type of every material
+            List<PartSubstitute> list = new ArrayList<>();
+            for (IMaterial material : MaterialManager.getValues()) {
+                if (material.hasPartSubstitutes()) {
+                    for (PartType partType : PartType.getValues()) {
+                        Optional<Ingredient> ingredient = material.getPartSubstitute(partType);
                         Optional<? extends CompoundPartItem> item = partType.getCompoundPartItem(GearType.PART);
 
-                        if (item.isPresent()) {
-                            // TODO: Item will likely not salvage correctly
-                            ItemStack result = item.get().create(MaterialInstance.of(material));
-                            return PartData.from(result);
+                        if (ingredient.isPresent() && item.isPresent()) {
+                            list.add(new PartSubstitute(material, ingredient.get(), item.get()));
                         }
                     }
                 }
             }
+            index = IngredientIndex.build(list, s -> s.ingredient);
+            substituteIndex = index;
+        }
+        return index;
+    }
+
+    /**
+     * Discards the material part substitute index. Called when materials or their part substitutes
+     * change.
+     */
+    public static void invalidateSubstituteIndex() {
+        substituteIndex = null;
+    }
+
+    private static final class PartSubstitute {
+        private final IMaterial material;
+        private final Ingredient ingredient;
+        private final CompoundPartItem item;
+        // The compound part item, created on first use. Only read, since PartData copies it.
+        @Nullable private ItemStack result;
+
+        private PartSubstitute(IMaterial material, Ingredient ingredient, CompoundPartItem item) {
+            this.material = material;
+            this.ingredient = ingredient;
+            this.item = item;
         }
 
-        return null;
+        private ItemStack getResult() {
+            if (result == null) {
+                result = item.create(MaterialInstance.of(material));
+            }
+            return result;
+        }
     }
 
     @Deprecated
@@ -114,6 +173,10 @@ public final class PartData implements IPartData {
 
     @Nullable
     public static PartData read(CompoundNBT tags) {
+        if (tags.contains(NBT_COMPACT_PART)) {
+            return readCompact(tags);
+        }
+
         String key = tags.getString(NBT_ID);
         IGearPart part = PartManager.get(new ResourceLocation(key));
         if (part == null) return null;
@@ -125,13 +188,90 @@ public final class PartData implements IPartData {
 
     @Nullable
     public static PartData readFast(CompoundNBT tags) {
-        String key = tags.getString(NBT_ID);
-        if (key.isEmpty()) return null;
-        IGearPart part = PartManager.get(new ResourceLocation(key));
+        ResourceLocation partId = readPartId(tags);
+        if (partId == null) return null;
+        IGearPart part = PartManager.get(partId);
         if (part == null) return null;
         return of(part);
     }
 
+    /**
+     * Reads only the part ID from part data NBT, in either the normal or compact format.
+     *
+     * @param tags The part data NBT
+     * @return The part ID, or null if missing or invalid
+     */
+    @Nullable
+    public static ResourceLocation readPartId(CompoundNBT tags) {
+        if (tags.contains(NBT_COMPACT_PART)) {
+            return SilentGear.getIdWithDefaultNamespace(tags.getString(NBT_COMPACT_PART));
+        }
+        String key = tags.getString(NBT_ID);
+        return key.isEmpty() ? null : ResourceLocation.tryCreate(key);
+    }
+
+    /**
+     * Check if part data NBT is in the compact format written by {@link #writeCompact}.
+     *
+     * @param tags The part data NBT
+     * @return True if compact
+     */
+    public static boolean isCompact(CompoundNBT tags) {
+        return tags.contains(NBT_COMPACT_PART);
+    }
+
+    @Nullable
+    private static PartData readCompact(CompoundNBT tags) {
+        ResourceLocation partId = SilentGear.getIdWithDefaultNamespace(tags.getString(NBT_COMPACT_PART));
+        if (partId == null) return null;
+        IGearPart part = PartManager.get(partId);
+        if (part == null) return null;
+
+        if (!tags.contains(NBT_COMPACT_ITEM)) {
+            return of(part, ItemStack.EMPTY);
+        }
+
+        ItemStack craftingItem = new ItemStack(readCompactItem(tags));
+
+        if (tags.contains(NBT_COMPACT_MATERIALS, 9)) {
+            ListNBT materialList = new ListNBT();
+            for (INBT nbt : tags.getList(NBT_COMPACT_MATERIALS, 10)) {
+                CompoundNBT materialTag = readCompactMaterial((CompoundNBT) nbt);
+                if (materialTag != null) {
+                    materialList.add(materialTag);
+                } else {
+                    SilentGear.LOGGER.warn("Skipping invalid compact material '{}' in part '{}'", nbt, partId);
+                }
+            }
+            craftingItem.getOrCreateTag().put(NBT_MATERIALS, materialList);
+        }
+
+        return of(part, craftingItem);
+    }
+
+    @Nullable
+    private static CompoundNBT readCompactMaterial(CompoundNBT compact) {
+        ResourceLocation materialId = SilentGear.getIdWithDefaultNamespace(compact.getString(NBT_ID));
+        if (materialId == null) return null;
+
+        ItemStack stack = new ItemStack(readCompactItem(compact));
+        MaterialGrade grade = EnumUtils.byOrdinal(compact.getByte(NBT_COMPACT_GRADE), MaterialGrade.NONE);
+        if (grade != MaterialGrade.NONE) {
+            grade.setGradeOnStack(stack);
+        }
+
+        CompoundNBT materialTag = new CompoundNBT();
+        materialTag.putString(NBT_ID, materialId.toString());
+        materialTag.put("Item", stack.write(new CompoundNBT()));
+        return materialTag;
+    }
+
+    private static Item readCompactItem(CompoundNBT tags) {
+        ResourceLocation itemId = SilentGear.getIdWithDefaultNamespace(tags.getString(NBT_COMPACT_ITEM));
+        Item item = itemId != null ? ForgeRegistries.ITEMS.getValue(itemId) : null;
+        return item != null ? item : Items.AIR;
+    }
+
     @Override
     public CompoundNBT write(@Nonnull CompoundNBT tags) {
         tags.putString("ID", part.getId().toString());
@@ -142,6 +282,85 @@ public final class PartData implements IPartData {
         return tags;
     }
 
+    /**
+     * Write the part in the compact construction format, if the crafting item can be rebuilt from
+     * it exactly. That is the case for items without NBT, and for compound part items whose
+     * material items have no NBT other than a grade. Anything else is written with {@link #write}.
+     *
+     * @param tags The compound to write to
+     * @return {@code tags}
+     */
+    public CompoundNBT writeCompact(CompoundNBT tags) {
+        if (craftingItem.isEmpty()) {
+            tags.putString(NBT_COMPACT_PART, SilentGear.shortenId(part.getId()));
+            return tags;
+        }
+
+        CompoundNBT itemTag = craftingItem.getTag();
+        ListNBT compactMaterials = null;
+        if (itemTag != null && !itemTag.isEmpty()) {
+            compactMaterials = getCompactMaterials(itemTag);
+            if (compactMaterials == null) {
+                return write(tags);
+            }
+        }
+
+        tags.putString(NBT_COMPACT_PART, SilentGear.shortenId(part.getId()));
+        tags.putString(NBT_COMPACT_ITEM, SilentGear.shortenId(craftingItem.getItem().getRegistryName()));
+        if (compactMaterials != null) {
+            tags.put(NBT_COMPACT_MATERIALS, compactMaterials);
+        }
+        return tags;
+    }
+
+    @Nullable
+    private static ListNBT getCompactMaterials(CompoundNBT itemTag) {
+        if (itemTag.size() != 1 || !itemTag.contains(NBT_MATERIALS, 9)) {
+            return null;
+        }
+
+        ListNBT ret = new ListNBT();
+        for (INBT nbt : itemTag.getList(NBT_MATERIALS, 10)) {
+            CompoundNBT compact = getCompactMaterial((CompoundNBT) nbt);
+            if (compact == null) {
+                return null;
+            }
+            ret.add(compact);
+        }
+        return ret;
+    }
+
+    @Nullable
+    private static CompoundNBT getCompactMaterial(CompoundNBT materialTag) {
+        ResourceLocation materialId = ResourceLocation.tryCreate(materialTag.getString(NBT_ID));
+        IMaterial material = MaterialManager.get(materialId);
+        if (material == null || materialTag.size() != 2 || !materialTag.contains("Item", 10)) {
+            return null;
+        }
+
+        ItemStack stack = ItemStack.read(materialTag.getCompound("Item"));
+        if (stack.isEmpty() || stack.getCount() != 1) {
+            return null;
+        }
+        MaterialGrade grade = MaterialGrade.NONE;
+        CompoundNBT stackTag = stack.getTag();
+        if (stackTag != null) {
+            // Only a grade can be rebuilt
+            grade = MaterialGrade.fromStack(stack);
+            if (stackTag.size() != 1 || grade == MaterialGrade.NONE || !grade.name().equals(stackTag.getString("SGear_Grade"))) {
+                return null;
+            }
+        }
+
+        CompoundNBT compact = new CompoundNBT();
+        compact.putString(NBT_ID, SilentGear.shortenId(materialId));
+        compact.putString(NBT_COMPACT_ITEM, SilentGear.shortenId(stack.getItem().getRegistryName()));
+        if (grade != MaterialGrade.NONE) {
+            compact.putByte(NBT_COMPACT_GRADE, (byte) grade.ordinal());
+        }
+        return compact;
+    }
+
     @Override
     public ResourceLocation getPartId() {
         return part.getId();
@@ -153,11 +372,30 @@ public final class PartData implements IPartData {
         return part;
     }
 
+    /**
+     * Gets the item the part was made from. Part data may be cached and shared between gear items,
+     * so the returned stack must not be modified. Copy it before placing it in an inventory.
+     *
+     * @return The crafting item (do not modify)
+     */
     @Override
     public ItemStack getCraftingItem() {
         return craftingItem;
     }
 
+    /**
+     * Gets the materials stored on the crafting item (compound parts only). The list is decoded
+     * once and cached, so the crafting item should not be modified afterwards.
+     *
+     * @return Unmodifiable list of materials, empty if the part has none
+     */
+    public List<MaterialInstance> getMaterials() {
+        if (materials == null) {
+            materials = Collections.unmodifiableList(CompoundPartItem.getMaterials(craftingItem));
+        }
+        return materials;
+    }
+
     @Override
     public int getTier() {
         return part.getTier(this);
@@ -19,9 +19,12 @@ import net.minecraft.util.text.TextFormatting;
 import net.minecraftforge.common.crafting.CraftingHelper;
 import net.minecraftforge.fml.network.NetworkEvent;
 import net.silentchaos512.gear.SilentGear;
+import net.silentchaos512.gear.api.item.GearType;
 import net.silentchaos512.gear.api.parts.IGearPart;
 import net.silentchaos512.gear.api.parts.PartType;
 import net.silentchaos512.gear.network.SyncGearPartsPacket;
+import net.silentchaos512.gear.util.GearData;
+import net.silentchaos512.gear.util.IngredientIndex;
 import org.apache.commons.io.IOUtils;
 import org.apache.logging.log4j.Marker;
 import org.apache.logging.log4j.MarkerManager;
@@ -30,8 +33,8 @@ import javax.annotation.Nullable;
 import java.io.IOException;
 import java.nio.charset.StandardCharsets;
 import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.function.Supplier;
-import java.util.stream.Collectors;
 
 @SuppressWarnings("deprecation")
 public final class PartManager implements IResourceManagerReloadListener {
@@ -41,9 +44,11 @@ public final class PartManager implements IResourceManagerReloadListener {
 
     private static final String DATA_PATH = "silentgear_parts";
     private static final String DATA_PATH_OLD = "silentgear/parts";
-    private static final Map<ResourceLocation, IGearPart> MAP = Collections.synchronizedMap(new LinkedHashMap<>());
     private static int highestMainPartTier = 0;
     private static final Collection<String> ERROR_LIST = new ArrayList<>();
+    private static int dataHash;
+    // Replaced (never modified) on reload and sync, so reads need no locking
+    private static volatile Snapshot snapshot = new Snapshot(0, ImmutableMap.of());
 
     private PartManager() {}
 
@@ -57,10 +62,11 @@ public final class PartManager implements IResourceManagerReloadListener {
         Collection<ResourceLocation> resources = getAllResources(resourceManager);
         if (resources.isEmpty()) return;
 
-        synchronized (MAP) {
-            MAP.clear();
+        synchronized (INSTANCE) {
+            Map<ResourceLocation, IGearPart> map = new LinkedHashMap<>();
             ERROR_LIST.clear();
             SilentGear.LOGGER.info(MARKER, "Reloading part files");
+            int hash = 0;
 
             for (ResourceLocation id : resources) {
                 String path = id.getPath().substring(DATA_PATH.length() + 1, id.getPath().length() - ".json".length());
@@ -79,11 +85,12 @@ public final class PartManager implements IResourceManagerReloadListener {
                     } else if (!CraftingHelper.processConditions(json, "conditions")) {
                         SilentGear.LOGGER.info("Skipping loading gear part {} as it's conditions were not met", name);
                     } else {
+                        hash += 31 * name.hashCode() + json.hashCode();
                         IGearPart part = PartSerializers.deserialize(name, json);
                         if (part instanceof AbstractGearPart) {
                             ((AbstractGearPart) part).packName = iresource.getPackName();
                         }
-                        addPart(part);
+                        addPart(map, part);
                         highestMainPartTier = Math.max(highestMainPartTier, part.getTier());
                     }
                 } catch (IllegalArgumentException | JsonParseException ex) {
@@ -95,7 +102,48 @@ public final class PartManager implements IResourceManagerReloadListener {
                 }
             }
 
-            SilentGear.LOGGER.info(MARKER, "Registered {} parts", MAP.size());
+            dataHash = hash;
+            publish(map);
+            SilentGear.LOGGER.info(MARKER, "Registered {} parts", map.size());
+        }
+        GearData.clearStatCaches();
+    }
+
+    /**
+     * Gets a hash of the contents of all loaded gear part files. This changes when the files are changed,
+     * but is the same after a restart with the same data.
+     *
+     * @return The data hash
+     */
+    public static int getDataHash() {
+        return dataHash;
+    }
+
+    /**
+     * Gets the index of the part. Indices are dense (zero to the number of parts minus one)
+     * and are reassigned every time parts are reloaded or synced, so they must not be saved.
+     *
+     * @param id The part ID
+     * @return The index, or -1 if the part is not loaded
+     */
+    public static int getIndex(ResourceLocation id) {
+        Integer index = snapshot.indices.get(id);
+        return index != null ? index : -1;
+    }
+
+    /**
+     * Gets the currently loaded parts. The snapshot never changes; a new one replaces it when parts
+     * are reloaded or synced.
+     *
+     * @return The current snapshot
+     */
+    public static Snapshot getSnapshot() {
+        return snapshot;
+    }
+
+    private static void publish(Map<ResourceLocation, IGearPart> map) {
+        synchronized (INSTANCE) {
+            snapshot = new Snapshot(snapshot.generation + 1, map);
         }
     }
 
@@ -106,42 +154,33 @@ public final class PartManager implements IResourceManagerReloadListener {
         return list;
     }
 
-    private static void addPart(IGearPart part) {
-        if (MAP.containsKey(part.getId())) {
+    private static void addPart(Map<ResourceLocation, IGearPart> map, IGearPart part) {
+        if (map.containsKey(part.getId())) {
             throw new IllegalStateException("Duplicate gear part " + part.getId());
         } else {
-            MAP.put(part.getId(), part);
+            map.put(part.getId(), part);
         }
     }
 
     public static Collection<IGearPart> getValues() {
-        synchronized (MAP) {
-            return MAP.values();
-        }
+        return snapshot.values;
     }
 
     public static List<IGearPart> getPartsOfType(PartType type) {
-        // TODO: cache this?
-        return getValues().stream()
-                .filter(part -> part.getType() == type)
-                .collect(Collectors.toList());
+        return snapshot.getPartsOfType(type);
     }
 
     public static Collection<IGearPart> getMains() {
-        // TODO: cache this?
-        return getPartsOfType(PartType.MAIN);
+        return snapshot.mains;
     }
 
     public static Collection<IGearPart> getRods() {
-        // TODO: cache this?
-        return getPartsOfType(PartType.ROD);
+        return snapshot.rods;
     }
 
     @Nullable
     public static IGearPart get(ResourceLocation id) {
-        synchronized (MAP) {
-            return MAP.get(id);
-        }
+        return snapshot.byId.get(id);
     }
 
     @Nullable
@@ -150,30 +189,42 @@ public final class PartManager implements IResourceManagerReloadListener {
         return partId != null ? get(partId) : null;
     }
 
+    /**
+     * Gets the part matching the crafting item. Parts are looked up by item, so only parts which
+     * could match the item are tested. Items matched by item alone, like compound part items
+     * ({@link net.silentchaos512.gear.item.CompoundPartItem}), do not need any ingredient tests.
+     *
+     * @param stack The crafting item
+     * @return The first part whose ingredient matches, or null if there is none
+     */
     @Nullable
     public static IGearPart from(ItemStack stack) {
         if (stack.isEmpty()) return null;
+        return snapshot.getItemIndex().getFirstMatch(stack);
+    }
 
-        // We can't reliable keep an IItemProvider -> IGearPart map anymore
-        for (IGearPart part : getValues()) {
-            if (part.getIngredient().test(stack)) {
-                return part;
-            }
-        }
-
-        return null;
+    /**
+     * Discards the item to part index and the cached compound parts. Call this if part crafting
+     * items are changed.
+     */
+    public static void invalidateItemIndex() {
+        Snapshot current = snapshot;
+        current.itemIndex = null;
+        current.compoundParts.clear();
     }
 
     public static void handlePartSyncPacket(SyncGearPartsPacket packet, Supplier<NetworkEvent.Context> context) {
-        synchronized (MAP) {
-            Map<ResourceLocation, IGearPart> oldParts = ImmutableMap.copyOf(MAP);
-            MAP.clear();
+        synchronized (INSTANCE) {
+            Map<ResourceLocation, IGearPart> oldParts = snapshot.byId;
+            Map<ResourceLocation, IGearPart> map = new LinkedHashMap<>();
             packet.getParts().forEach(part -> {
                 part.retainData(oldParts.get(part.getId()));
-                MAP.put(part.getId(), part);
+                map.put(part.getId(), part);
             });
-            SilentGear.LOGGER.info("Read {} parts from server", MAP.size());
+            publish(map);
+            SilentGear.LOGGER.info("Read {} parts from server", map.size());
         }
+        GearData.clearStatCaches();
         context.get().setPacketHandled(true);
     }
 
@@ -188,4 +239,134 @@ public final class PartManager implements IResourceManagerReloadListener {
         }
         return ImmutableList.of();
     }
+
+    /**
+     * An immutable view of the loaded parts, with parts grouped by type. Part indices (see {@link
+     * #getIndex(ResourceLocation)}) are positions in {@link #getValues()}.
+     */
+    public static final class Snapshot {
+        private final int generation;
+        private final Map<ResourceLocation, IGearPart> byId;
+        private final List<IGearPart> values;
+        private final Map<ResourceLocation, Integer> indices;
+        private final Map<PartType, List<IGearPart>> byType;
+        private final List<IGearPart> mains;
+        private final List<IGearPart> rods;
+        private final Map<Integer, List<IGearPart>> byTier = new ConcurrentHashMap<>();
+        // Looked up by crafting item, so cleared along with itemIndex
+        private final Map<PartType, Map<GearType, Optional<IGearPart>>> compoundParts = new ConcurrentHashMap<>();
+        // Built on first use, and again if crafting items or item tags change
+        @Nullable private volatile IngredientIndex<IGearPart> itemIndex;
+
+        private Snapshot(int generation, Map<ResourceLocation, IGearPart> map) {
+            this.generation = generation;
+            this.byId = ImmutableMap.copyOf(map);
+            this.values = ImmutableList.copyOf(map.values());
+
+            ImmutableMap.Builder<ResourceLocation, Integer> indicesBuilder = ImmutableMap.builder();
+            Map<PartType, ImmutableList.Builder<IGearPart>> typeBuilders = new LinkedHashMap<>();
+            for (int i = 0; i < values.size(); ++i) {
+                IGearPart part = values.get(i);
+                indicesBuilder.put(part.getId(), i);
+                typeBuilders.computeIfAbsent(part.getType(), t -> ImmutableList.builder()).add(part);
+            }
+            this.indices = indicesBuilder.build();
+
+            ImmutableMap.Builder<PartType, List<IGearPart>> byTypeBuilder = ImmutableMap.builder();
+            typeBuilders.forEach((type, builder) -> byTypeBuilder.put(type, builder.build()));
+            this.byType = byTypeBuilder.build();
+            this.mains = getPartsOfType(PartType.MAIN);
+            this.rods = getPartsOfType(PartType.ROD);
+        }
+
+        /**
+         * Gets the generation of the snapshot, which increases every time parts are reloaded or
+         * synced. Useful as a cache key.
+         *
+         * @return The generation
+         */
+        public int getGeneration() {
+            return generation;
+        }
+
+        @Nullable
+        public IGearPart get(ResourceLocation id) {
+            return byId.get(id);
+        }
+
+        /**
+         * Gets all parts, in load order.
+         *
+         * @return Immutable list of parts
+         */
+        public List<IGearPart> getValues() {
+            return values;
+        }
+
+        /**
+         * Gets all parts of the type, in load order.
+         *
+         * @param type The part type
+         * @return Immutable list of parts
+         */
+        public List<IGearPart> getPartsOfType(PartType type) {
+            return byType.getOrDefault(type, ImmutableList.of());
+        }
+
+        public List<IGearPart> getMains() {
+            return mains;
+        }
+
+        public List<IGearPart> getRods() {
+            return rods;
+        }
+
+        /**
+         * Gets all parts of the tier, in load order. Each list is built on first use.
+         *
+         * @param tier The part tier, or -1 for any tier
+         * @return Immutable list of parts
+         */
+        public List<IGearPart> getPartsOfTier(int tier) {
+            if (tier == -1) return values;
+            return byTier.computeIfAbsent(tier, t -> values.stream()
+                    .filter(part -> part.getTier() == t)
+                    .collect(ImmutableList.toImmutableList()));
+        }
+
+        /**
+         * Gets the compound part made with the part type's compound part item for the gear type
+         * (see {@link PartType#getCompoundPartItem(GearType)}). The result is cached, since finding
+         * the item may need a search of the item registry.
+         *
+         * @param partType The part type
+         * @param gearType The gear type
+         * @return The part, or empty if there is no such item or part
+         */
+        public Optional<IGearPart> getCompoundPart(PartType partType, GearType gearType) {
+            // Rebuilds the index (and clears cached parts) first if item tags changed
+            IngredientIndex<IGearPart> index = getItemIndex();
+            Optional<IGearPart> part = compoundParts.getOrDefault(partType, Collections.emptyMap()).get(gearType);
+            if (part == null) {
+                // Resolved outside of the map, through this snapshot's own index
+                part = partType.getCompoundPartItem(gearType)
+                        .map(item -> index.getFirstMatch(new ItemStack(item)));
+                if (itemIndex == index) {
+                    compoundParts.computeIfAbsent(partType, t -> new ConcurrentHashMap<>()).putIfAbsent(gearType, part);
+                }
+            }
+            return part;
+        }
+
+        private IngredientIndex<IGearPart> getItemIndex() {
+            IngredientIndex<IGearPart> index = itemIndex;
+            if (index == null || !index.isValid()) {
+                index = IngredientIndex.build(values, IGearPart::getIngredient);
+                itemIndex = index;
+                // Item tags may have changed what the compound part items match
+                compoundParts.clear();
+            }
+            return index;
+        }
+    }
 }
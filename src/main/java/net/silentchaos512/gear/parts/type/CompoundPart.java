@@ -52,6 +52,10 @@ public class CompoundPart extends AbstractGearPart {
     }
 
     public static List<MaterialInstance> getMaterials(IPartData part) {
+        if (part instanceof PartData) {
+            // Cached
+            return ((PartData) part).getMaterials();
+        }
         return CompoundPartItem.getMaterials(part.getCraftingItem());
     }
 
@@ -254,10 +258,7 @@ public class CompoundPart extends AbstractGearPart {
 
     private List<MaterialInstance> getRandomMaterials(GearType gearType, int count, int tier) {
         // Excludes children, will select a random child material (if appropriate) below
-        List<IMaterial> matsOfTier = MaterialManager.getValues(tier == 0).stream()
-                .filter(m -> tier < 0 || tier == m.getTier(this.partType))
-                .filter(m -> m.allowedInPart(this.partType) && m.isCraftingAllowed(this.partType, gearType))
-                .collect(Collectors.toList());
+        List<IMaterial> matsOfTier = MaterialManager.getSnapshot().getCraftableMaterials(this.partType, gearType, tier, tier == 0);
 
         if (!matsOfTier.isEmpty()) {
             List<MaterialInstance> ret = new ArrayList<>();
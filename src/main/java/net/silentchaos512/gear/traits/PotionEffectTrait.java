@@ -5,7 +5,6 @@ import com.google.gson.JsonElement;
 import com.google.gson.JsonObject;
 import com.google.gson.JsonParseException;
 import net.minecraft.entity.player.PlayerEntity;
-import net.minecraft.item.ItemStack;
 import net.minecraft.network.PacketBuffer;
 import net.minecraft.potion.Effect;
 import net.minecraft.potion.EffectInstance;
@@ -15,11 +14,10 @@ import net.minecraft.util.math.MathHelper;
 import net.minecraftforge.registries.ForgeRegistries;
 import net.silentchaos512.gear.SilentGear;
 import net.silentchaos512.gear.api.item.GearType;
-import net.silentchaos512.gear.api.item.ICoreArmor;
 import net.silentchaos512.gear.api.item.ICoreItem;
 import net.silentchaos512.gear.api.traits.ITraitSerializer;
 import net.silentchaos512.gear.api.traits.TraitActionContext;
-import net.silentchaos512.gear.util.TraitHelper;
+import net.silentchaos512.gear.event.PotionEffectTraitHandler;
 import net.silentchaos512.lib.util.TimeUtils;
 
 import java.util.*;
@@ -33,6 +31,8 @@ public final class PotionEffectTrait extends SimpleTrait {
             PotionEffectTrait::writeBuffer
     );
 
+    private static final int MAX_UPDATE_INTERVAL = 20;
+
     private final Map<String, List<PotionData>> potions = new HashMap<>();
 
     private PotionEffectTrait(ResourceLocation id) {
@@ -42,29 +42,37 @@ public final class PotionEffectTrait extends SimpleTrait {
     @Override
     public void onUpdate(TraitActionContext context, boolean isEquipped) {
         PlayerEntity player = context.getPlayer();
-        if (player == null || !isEquipped) return;
+        // Effects are synced to the client by the server
+        if (player == null || !isEquipped || player.world.isRemote) return;
         GearType gearType = ((ICoreItem) context.getGear().getItem()).getGearType();
-        potions.forEach((type, list) -> applyEffects(player, gearType, type, list));
+        // Reapply effects if they could run out before the next update
+        int refreshTime = 2 * getUpdateInterval();
+        potions.forEach((type, list) -> applyEffects(player, gearType, type, list, refreshTime));
+    }
+
+    @Override
+    public int getUpdateInterval() {
+        // Reapply effects well before the shortest one runs out
+        int shortestDuration = potions.values().stream()
+                .flatMap(Collection::stream)
+                .mapToInt(d -> d.duration)
+                .min()
+                .orElse(MAX_UPDATE_INTERVAL);
+        return MathHelper.clamp(shortestDuration / 2, 1, MAX_UPDATE_INTERVAL);
     }
 
-    private void applyEffects(PlayerEntity player, GearType gearType, String type, Iterable<PotionData> effects) {
+    private void applyEffects(PlayerEntity player, GearType gearType, String type, Iterable<PotionData> effects, int refreshTime) {
         if (gearType.matches(type) || "all".equals(type)) {
             int setPieceCount = getSetPieceCount(type, player);
             boolean hasFullSet = !"armor".equals(type) || setPieceCount >= 4;
-            effects.forEach(d -> d.getEffect(setPieceCount, hasFullSet).ifPresent(player::addPotionEffect));
+            effects.forEach(d -> d.getEffect(setPieceCount, hasFullSet).ifPresent(effect ->
+                    PotionEffectTraitHandler.addEffect(player, effect, refreshTime)));
         }
     }
 
     private int getSetPieceCount(String type, PlayerEntity player) {
         if (!"armor".equals(type)) return 1;
-
-        int count = 0;
-        for (ItemStack stack : player.getArmorInventoryList()) {
-            if (stack.getItem() instanceof ICoreArmor && TraitHelper.hasTrait(stack, this)) {
-                ++count;
-            }
-        }
-        return count;
+        return PotionEffectTraitHandler.getArmorPieceCount(player, getId());
     }
 
     private static void readJson(PotionEffectTrait trait, JsonObject json) {
@@ -1,6 +1,7 @@
 package net.silentchaos512.gear.traits;
 
 import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
 import com.google.gson.Gson;
 import com.google.gson.GsonBuilder;
 import com.google.gson.JsonObject;
@@ -18,6 +19,7 @@ import net.minecraftforge.fml.network.NetworkEvent;
 import net.silentchaos512.gear.SilentGear;
 import net.silentchaos512.gear.api.traits.ITrait;
 import net.silentchaos512.gear.network.SyncTraitsPacket;
+import net.silentchaos512.gear.util.GearData;
 import org.apache.commons.io.IOUtils;
 import org.apache.logging.log4j.Marker;
 import org.apache.logging.log4j.MarkerManager;
@@ -37,8 +39,10 @@ public final class TraitManager implements IResourceManagerReloadListener {
 
     private static final String DATA_PATH = "silentgear_traits";
     private static final String DATA_PATH_OLD = "silentgear/traits";
-    private static final Map<ResourceLocation, ITrait> MAP = Collections.synchronizedMap(new LinkedHashMap<>());
     private static final Collection<ResourceLocation> ERROR_LIST = new ArrayList<>();
+    private static int dataHash;
+    // Replaced (never modified) on reload and sync, so reads need no locking
+    private static volatile Snapshot snapshot = new Snapshot(0, ImmutableMap.of());
 
     private TraitManager() {}
 
@@ -48,9 +52,10 @@ public final class TraitManager implements IResourceManagerReloadListener {
         Collection<ResourceLocation> resources = getAllResources(resourceManager);
         if (resources.isEmpty()) return;
 
-        MAP.clear();
+        Map<ResourceLocation, ITrait> map = new LinkedHashMap<>();
         ERROR_LIST.clear();
         SilentGear.LOGGER.info(MARKER, "Reloading trait files");
+        int hash = 0;
 
         for (ResourceLocation id : resources) {
             String path = id.getPath().substring(DATA_PATH.length() + 1, id.getPath().length() - ".json".length());
@@ -65,7 +70,8 @@ public final class TraitManager implements IResourceManagerReloadListener {
                 if (json == null) {
                     SilentGear.LOGGER.error(MARKER, "could not load trait {} as it's null or empty", name);
                 } else {
-                    addTrait(TraitSerializers.deserialize(name, json));
+                    hash += 31 * name.hashCode() + json.hashCode();
+                    addTrait(map, TraitSerializers.deserialize(name, json));
                 }
             } catch (IllegalArgumentException | JsonParseException ex) {
                 SilentGear.LOGGER.error(MARKER, "Parsing error loading trait {}", name, ex);
@@ -76,7 +82,79 @@ public final class TraitManager implements IResourceManagerReloadListener {
             }
         }
 
-        SilentGear.LOGGER.info(MARKER, "Registered {} traits", MAP.size());
+        dataHash = hash;
+        publish(map);
+        SilentGear.LOGGER.info(MARKER, "Registered {} traits", map.size());
+        GearData.clearStatCaches();
+    }
+
+    /**
+     * Gets a hash of the contents of all loaded trait files. This changes when the files are changed,
+     * but is the same after a restart with the same data.
+     *
+     * @return The data hash
+     */
+    public static int getDataHash() {
+        return dataHash;
+    }
+
+    /**
+     * Gets the index of the trait. Indices are dense (zero to the number of traits minus one)
+     * and are reassigned every time traits are reloaded or synced, so they must not be saved.
+     *
+     * @param id The trait ID
+     * @return The index, or -1 if the trait is not loaded
+     */
+    public static int getIndex(ResourceLocation id) {
+        return snapshot.getIndex(id);
+    }
+
+    /**
+     * Gets the number of loaded traits. Trait indices are less than this.
+     *
+     * @return The number of traits
+     */
+    public static int getTraitCount() {
+        return snapshot.getTraitCount();
+    }
+
+    /**
+     * Gets the index of the trait. Same as {@link #getIndex(ResourceLocation)}, but faster.
+     *
+     * @param trait The trait
+     * @return The index, or -1 if the trait is not currently loaded
+     */
+    public static int getIndex(ITrait trait) {
+        return snapshot.getIndex(trait);
+    }
+
+    /**
+     * Check if the trait with index {@code index} cancels with the trait with index {@code
+     * otherIndex}. This is {@link ITrait#willCancelWith}, looked up from a table built when traits
+     * are loaded.
+     *
+     * @param index      Index of the first trait
+     * @param otherIndex Index of the second trait
+     * @return True if the first trait will cancel with the second
+     */
+    public static boolean willCancelWith(int index, int otherIndex) {
+        return snapshot.willCancelWith(index, otherIndex);
+    }
+
+    /**
+     * Gets the currently loaded traits. The snapshot never changes; a new one replaces it when
+     * traits are reloaded or synced.
+     *
+     * @return The current snapshot
+     */
+    public static Snapshot getSnapshot() {
+        return snapshot;
+    }
+
+    private static void publish(Map<ResourceLocation, ITrait> map) {
+        synchronized (INSTANCE) {
+            snapshot = new Snapshot(snapshot.generation + 1, map);
+        }
     }
 
     private static Collection<ResourceLocation> getAllResources(IResourceManager resourceManager) {
@@ -86,29 +164,25 @@ public final class TraitManager implements IResourceManagerReloadListener {
         return list;
     }
 
-    private static void addTrait(ITrait trait) {
-        if (MAP.containsKey(trait.getId())) {
+    private static void addTrait(Map<ResourceLocation, ITrait> map, ITrait trait) {
+        if (map.containsKey(trait.getId())) {
             throw new IllegalArgumentException("Duplicate trait " + trait.getId());
         } else {
-            MAP.put(trait.getId(), trait);
+            map.put(trait.getId(), trait);
         }
     }
 
     public static Collection<ResourceLocation> getKeys() {
-        synchronized (MAP) {
-            return MAP.keySet();
-        }
+        return snapshot.byId.keySet();
     }
 
     public static Collection<ITrait> getValues() {
-        synchronized (MAP) {
-            return MAP.values();
-        }
+        return snapshot.values;
     }
 
     @Nullable
     public static ITrait get(ResourceLocation id) {
-        return MAP.get(id);
+        return snapshot.byId.get(id);
     }
 
     @Nullable
@@ -117,9 +191,11 @@ public final class TraitManager implements IResourceManagerReloadListener {
     }
 
     public static void handleTraitSyncPacket(SyncTraitsPacket packet, Supplier<NetworkEvent.Context> context) {
-        MAP.clear();
-        packet.getTraits().forEach(trait -> MAP.put(trait.getId(), trait));
-        SilentGear.LOGGER.info("Read {} traits from server", MAP.size());
+        Map<ResourceLocation, ITrait> map = new LinkedHashMap<>();
+        packet.getTraits().forEach(trait -> map.put(trait.getId(), trait));
+        publish(map);
+        SilentGear.LOGGER.info("Read {} traits from server", map.size());
+        GearData.clearStatCaches();
         context.get().setPacketHandled(true);
     }
 
@@ -134,4 +210,111 @@ public final class TraitManager implements IResourceManagerReloadListener {
         }
         return ImmutableList.of();
     }
+
+    /**
+     * An immutable view of the loaded traits. Trait indices (see {@link #getIndex(ITrait)}) are
+     * positions in {@link #getValues()}, and the table of which traits cancel each other is built
+     * along with the snapshot.
+     */
+    public static final class Snapshot {
+        private final int generation;
+        private final Map<ResourceLocation, ITrait> byId;
+        private final List<ITrait> values;
+        private final Map<ResourceLocation, Integer> indices;
+        private final Map<ITrait, Integer> traitIndices;
+        // Which traits cancel each other, by index (see ITrait#willCancelWith)
+        private final BitSet[] cancelMatrix;
+
+        private Snapshot(int generation, Map<ResourceLocation, ITrait> map) {
+            this.generation = generation;
+            this.byId = ImmutableMap.copyOf(map);
+            this.values = ImmutableList.copyOf(map.values());
+
+            ImmutableMap.Builder<ResourceLocation, Integer> builder = ImmutableMap.builder();
+            Map<ITrait, Integer> byTrait = new IdentityHashMap<>();
+            for (int i = 0; i < values.size(); ++i) {
+                builder.put(values.get(i).getId(), i);
+                byTrait.put(values.get(i), i);
+            }
+            this.indices = builder.build();
+            this.traitIndices = Collections.unmodifiableMap(byTrait);
+
+            this.cancelMatrix = new BitSet[values.size()];
+            for (int i = 0; i < values.size(); ++i) {
+                cancelMatrix[i] = new BitSet();
+                for (int j = 0; j < values.size(); ++j) {
+                    if (values.get(i).willCancelWith(values.get(j))) {
+                        cancelMatrix[i].set(j);
+                    }
+                }
+            }
+        }
+
+        /**
+         * Gets the generation of the snapshot, which increases every time traits are reloaded or
+         * synced. Useful as a cache key.
+         *
+         * @return The generation
+         */
+        public int getGeneration() {
+            return generation;
+        }
+
+        @Nullable
+        public ITrait get(ResourceLocation id) {
+            return byId.get(id);
+        }
+
+        /**
+         * Gets all traits, in load order.
+         *
+         * @return Immutable list of traits
+         */
+        public List<ITrait> getValues() {
+            return values;
+        }
+
+        /**
+         * Gets the number of traits. Trait indices in this snapshot are less than this.
+         *
+         * @return The number of traits
+         */
+        public int getTraitCount() {
+            return values.size();
+        }
+
+        /**
+         * Gets the index of the trait in this snapshot.
+         *
+         * @param id The trait ID
+         * @return The index, or -1 if the trait is not in this snapshot
+         */
+        public int getIndex(ResourceLocation id) {
+            Integer index = indices.get(id);
+            return index != null ? index : -1;
+        }
+
+        /**
+         * Gets the index of the trait in this snapshot.
+         *
+         * @param trait The trait
+         * @return The index, or -1 if the trait is not in this snapshot
+         */
+        public int getIndex(ITrait trait) {
+            Integer index = traitIndices.get(trait);
+            return index != null ? index : -1;
+        }
+
+        /**
+         * Check if the trait with index {@code index} cancels with the trait with index {@code
+         * otherIndex}. Indices must come from this snapshot.
+         *
+         * @param index      Index of the first trait
+         * @param otherIndex Index of the second trait
+         * @return True if the first trait will cancel with the second
+         */
+        public boolean willCancelWith(int index, int otherIndex) {
+            return cancelMatrix[index].get(otherIndex);
+        }
+    }
 }
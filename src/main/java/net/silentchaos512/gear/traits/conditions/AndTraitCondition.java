@@ -13,6 +13,7 @@ import net.silentchaos512.gear.api.parts.PartType;
 import net.silentchaos512.gear.api.traits.ITrait;
 import net.silentchaos512.gear.api.traits.ITraitCondition;
 import net.silentchaos512.gear.api.traits.ITraitConditionSerializer;
+import net.silentchaos512.gear.api.traits.TraitEvaluationContext;
 import net.silentchaos512.gear.gear.material.MaterialInstance;
 import net.silentchaos512.gear.traits.TraitSerializers;
 
@@ -66,6 +67,16 @@ public class AndTraitCondition implements ITraitCondition {
         return true;
     }
 
+    @Override
+    public boolean matches(TraitEvaluationContext context, ITrait trait) {
+        for (ITraitCondition child : this.children) {
+            if (!child.matches(context, trait)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
     public static class Serializer implements ITraitConditionSerializer<AndTraitCondition> {
 
         @Override
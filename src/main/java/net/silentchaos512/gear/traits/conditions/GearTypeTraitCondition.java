@@ -11,6 +11,7 @@ import net.silentchaos512.gear.api.parts.PartType;
 import net.silentchaos512.gear.api.traits.ITrait;
 import net.silentchaos512.gear.api.traits.ITraitCondition;
 import net.silentchaos512.gear.api.traits.ITraitConditionSerializer;
+import net.silentchaos512.gear.api.traits.TraitEvaluationContext;
 import net.silentchaos512.gear.gear.material.MaterialInstance;
 import net.silentchaos512.gear.util.GearHelper;
 
@@ -47,6 +48,15 @@ public class GearTypeTraitCondition implements ITraitCondition {
         return type == null || type.matches(this.gearType);
     }
 
+    @Override
+    public boolean matches(TraitEvaluationContext context, ITrait trait) {
+        GearType type = context.getGearType();
+        if (context.isForParts()) {
+            return type != null && type.matches(this.gearType);
+        }
+        return type == null || type.matches(this.gearType);
+    }
+
     public static class Serializer implements ITraitConditionSerializer<GearTypeTraitCondition> {
 
         @Override
@@ -10,6 +10,7 @@ import net.silentchaos512.gear.api.parts.PartType;
 import net.silentchaos512.gear.api.traits.ITrait;
 import net.silentchaos512.gear.api.traits.ITraitCondition;
 import net.silentchaos512.gear.api.traits.ITraitConditionSerializer;
+import net.silentchaos512.gear.api.traits.TraitEvaluationContext;
 import net.silentchaos512.gear.gear.material.MaterialInstance;
 
 import java.util.Collection;
@@ -44,6 +45,11 @@ public class MaterialCountTraitCondition implements ITraitCondition {
         return count >= this.requiredCount;
     }
 
+    @Override
+    public boolean matches(TraitEvaluationContext context, ITrait trait) {
+        return context.countWithTrait(trait) >= this.requiredCount;
+    }
+
     public static class Serializer implements ITraitConditionSerializer<MaterialCountTraitCondition> {
 
         @Override
@@ -10,6 +10,7 @@ import net.silentchaos512.gear.api.parts.PartType;
 import net.silentchaos512.gear.api.traits.ITrait;
 import net.silentchaos512.gear.api.traits.ITraitCondition;
 import net.silentchaos512.gear.api.traits.ITraitConditionSerializer;
+import net.silentchaos512.gear.api.traits.TraitEvaluationContext;
 import net.silentchaos512.gear.gear.material.MaterialInstance;
 
 import java.util.Collection;
@@ -45,6 +46,12 @@ public class MaterialRatioTraitCondition implements ITraitCondition {
         return ratio >= this.requiredRatio;
     }
 
+    @Override
+    public boolean matches(TraitEvaluationContext context, ITrait trait) {
+        float ratio = (float) context.countWithTrait(trait) / context.getCount();
+        return ratio >= this.requiredRatio;
+    }
+
     public static class Serializer implements ITraitConditionSerializer<MaterialRatioTraitCondition> {
 
         @Override
@@ -10,6 +10,7 @@ import net.silentchaos512.gear.api.parts.PartType;
 import net.silentchaos512.gear.api.traits.ITrait;
 import net.silentchaos512.gear.api.traits.ITraitCondition;
 import net.silentchaos512.gear.api.traits.ITraitConditionSerializer;
+import net.silentchaos512.gear.api.traits.TraitEvaluationContext;
 import net.silentchaos512.gear.gear.material.MaterialInstance;
 import net.silentchaos512.gear.traits.TraitSerializers;
 
@@ -40,6 +41,11 @@ public class NotTraitCondition implements ITraitCondition {
         return !child.matches(gear, partType, materials, trait);
     }
 
+    @Override
+    public boolean matches(TraitEvaluationContext context, ITrait trait) {
+        return !child.matches(context, trait);
+    }
+
     public static class Serializer implements ITraitConditionSerializer<NotTraitCondition> {
 
         @Override
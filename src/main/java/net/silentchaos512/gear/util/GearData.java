@@ -1,5 +1,8 @@
 package net.silentchaos512.gear.util;
 
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.collect.ImmutableList;
 import net.minecraft.entity.player.PlayerEntity;
 import net.minecraft.item.ItemStack;
 import net.minecraft.nbt.CompoundNBT;
@@ -7,27 +10,32 @@ import net.minecraft.nbt.EndNBT;
 import net.minecraft.nbt.INBT;
 import net.minecraft.nbt.ListNBT;
 import net.minecraft.util.ResourceLocation;
+import net.minecraftforge.event.TickEvent;
 import net.minecraftforge.event.entity.player.PlayerEvent.PlayerLoggedInEvent;
+import net.minecraftforge.event.entity.player.PlayerEvent.PlayerLoggedOutEvent;
 import net.minecraftforge.eventbus.api.SubscribeEvent;
 import net.minecraftforge.fml.common.Mod;
+import net.minecraftforge.fml.event.server.FMLServerStoppingEvent;
 import net.silentchaos512.gear.SilentGear;
 import net.silentchaos512.gear.api.item.ICoreArmor;
 import net.silentchaos512.gear.api.item.ICoreItem;
-import net.silentchaos512.gear.api.item.ICoreTool;
 import net.silentchaos512.gear.api.parts.*;
+import net.silentchaos512.gear.api.stats.GearStatsView;
 import net.silentchaos512.gear.api.stats.ItemStat;
 import net.silentchaos512.gear.api.stats.ItemStats;
 import net.silentchaos512.gear.api.stats.StatInstance;
+import net.silentchaos512.gear.api.stats.StatModifierAccumulator;
 import net.silentchaos512.gear.api.stats.StatModifierMap;
 import net.silentchaos512.gear.api.traits.ITrait;
-import net.silentchaos512.gear.api.traits.TraitActionContext;
 import net.silentchaos512.gear.config.Config;
 import net.silentchaos512.gear.gear.material.MaterialInstance;
+import net.silentchaos512.gear.gear.material.MaterialManager;
 import net.silentchaos512.gear.item.CompoundPartItem;
 import net.silentchaos512.gear.parts.PartData;
 import net.silentchaos512.gear.parts.PartManager;
 import net.silentchaos512.gear.parts.type.CompoundPart;
 import net.silentchaos512.gear.traits.SynergyTrait;
+import net.silentchaos512.gear.traits.TraitManager;
 import net.silentchaos512.lib.collection.StackList;
 import net.silentchaos512.lib.util.NameUtils;
 import net.silentchaos512.utils.Color;
@@ -49,6 +57,8 @@ public final class GearData {
     private static final String NBT_ROOT_STATISTICS = "Statistics";
 
     private static final String NBT_CONSTRUCTION_PARTS = "Parts";
+    private static final String NBT_CONSTRUCTION_FORMAT = "Format";
+    private static final String NBT_FINGERPRINT = "Fingerprint";
     private static final String NBT_LOCK_STATS = "LockStats";
     private static final String NBT_IS_EXAMPLE = "IsExample";
     private static final String NBT_MODEL_KEY = "ModelKey";
@@ -60,6 +70,23 @@ public final class GearData {
     private static final String NBT_REPAIR_COUNT = "RepairCount";
     private static final String NBT_STATS = "Stats";
 
+    // Version 2 writes parts in the compact format, see PartData#writeCompact
+    private static final byte CONSTRUCTION_FORMAT = 2;
+
+    // See getFingerprintBase, null until computed
+    @Nullable private static volatile Integer fingerprintBase;
+
+    // Decoded stats, keyed by the identity of the stats compound. Recalculating writes a new
+    // compound, so stale views are never returned and old entries are garbage collected.
+    private static final Cache<CompoundNBT, GearStatsView> STATS_VIEW_CACHE = CacheBuilder.newBuilder()
+            .weakKeys()
+            .build();
+    // Decoded construction parts, keyed by the identity of the parts list. The list is replaced by
+    // writeConstructionParts, so entries for old lists are simply never used again.
+    private static final Cache<ListNBT, DecodedParts> CONSTRUCTION_PARTS_CACHE = CacheBuilder.newBuilder()
+            .weakKeys()
+            .build();
+
     private GearData() {
         throw new IllegalAccessError("Utility class");
     }
@@ -93,13 +120,38 @@ public final class GearData {
 
         getUUID(stack);
         ICoreItem item = (ICoreItem) stack.getItem();
-        PartDataList parts = getConstructionParts(stack);
 
         CompoundNBT propertiesCompound = getData(stack, NBT_ROOT_PROPERTIES);
         if (!propertiesCompound.contains(NBT_LOCK_STATS))
             propertiesCompound.putBoolean(NBT_LOCK_STATS, false);
 
         final boolean statsUnlocked = !propertiesCompound.getBoolean(NBT_LOCK_STATS);
+        if (statsUnlocked) {
+            migrateConstructionFormat(stack);
+        }
+        ListNBT partsTag = getData(stack, NBT_ROOT_CONSTRUCTION).getList(NBT_CONSTRUCTION_PARTS, 10);
+
+        if (statsUnlocked) {
+            StatRecalculationCache.Entry cached = StatRecalculationCache.get(stack, partsTag);
+            if (cached != null) {
+                // Parts have not changed (damage or lock state did), so only the trait stage needs
+                // to run again. Rendering info depends only on parts and is still up to date.
+                if (player != null) {
+                    SilentGear.LOGGER.debug("Recalculating (parts unchanged) for {}'s {}", player.getScoreboardName(), stack.getDisplayName().getString());
+                }
+                writeStats(stack, player, propertiesCompound, cached);
+                // The fingerprint was written when the entry was built. Cache entries are
+                // discarded whenever anything else in the fingerprint changes.
+                if (!propertiesCompound.contains(NBT_FINGERPRINT)) {
+                    propertiesCompound.putInt(NBT_FINGERPRINT, computeFingerprint(partsTag));
+                }
+                return;
+            }
+        }
+
+        DecodedParts decoded = getDecodedParts(partsTag);
+        PartDataList parts = PartDataList.of(decoded.parts);
+
         final boolean partsListValid = !parts.isEmpty() && !parts.getMains().isEmpty();
         if (statsUnlocked && partsListValid) {
             // We should recalculate the item's stats!
@@ -108,48 +160,20 @@ public final class GearData {
             }
             clearCachedData(stack);
             propertiesCompound.putString("ModVersion", SilentGear.getVersion());
-            PartDataList uniqueParts = parts.getUniqueParts(true);
-            Map<ITrait, Integer> traits = TraitHelper.getTraits(stack, parts);
 
-            double synergy = calculateSynergyValue(parts, uniqueParts, traits);
-            boolean hasMissingRod = item instanceof ICoreTool && parts.getRods().isEmpty();
-
-            // Get all stat modifiers from all parts and item class modifiers
-            StatModifierMap stats = getStatModifiers(stack, item, parts, synergy);
-
-            // For debugging
-            Map<ItemStat, Float> oldStatValues = getCurrentStatsForDebugging(stack);
-
-            // Calculate and write stats
-            final float damageRatio = (float) stack.getDamage() / (float) stack.getMaxDamage();
-            CompoundNBT statsCompound = new CompoundNBT();
-            for (ItemStat stat : stats.getStats()) {
-                final float initialValue = stat.compute(stat.getDefaultValue(), stats.get(stat));
-                // Some stats will be reduced if tool rod is missing (and required)
-                final float withMissingParts = hasMissingRod ? stat.withMissingRodEffect(initialValue) : initialValue;
-                // Allow traits to modify stat
-                final float withTraits = TraitHelper.activateTraits(stack, withMissingParts, (trait, level, val) -> {
-                    TraitActionContext context = new TraitActionContext(player, level, stack);
-                    return trait.onGetStat(context, stat, val, damageRatio);
-                });
-                final float value = Config.Common.getStatWithMultiplier(stat, withTraits);
-                // SilentGear.log.debug(stat, value);
-                ResourceLocation statId = Objects.requireNonNull(stat.getRegistryName());
-                propertiesCompound.remove(statId.getPath()); // Remove old keys
-                statsCompound.putFloat(statId.toString(), stat.clampValue(value));
-            }
-            propertiesCompound.put(NBT_STATS, statsCompound);
-
-            if (player != null) {
-                printStatsForDebugging(stack, stats, oldStatValues);
-            }
+            // Get all stat modifiers from all parts and item class modifiers, reusing those of
+            // unchanged parts
+            StatRecalculationCache.Entry entry = StatRecalculationCache.build(stack, item, partsTag, parts, decoded.tags);
+            writeStats(stack, player, propertiesCompound, entry);
 
             // Cache traits in properties compound as well
             ListNBT traitList = new ListNBT();
-            traits.forEach((trait, level) -> traitList.add(trait.write(level)));
+            entry.traits.forEach((trait, level) -> traitList.add(trait.write(level)));
             propertiesCompound.put("Traits", traitList);
+            GearSummary.putTraits(traitList, entry.traits);
 
-            propertiesCompound.putFloat(NBT_SYNERGY, (float) synergy);
+            propertiesCompound.putFloat(NBT_SYNERGY, (float) entry.synergy);
+            propertiesCompound.putInt(NBT_FINGERPRINT, computeFingerprint(partsTag));
         } else {
             SilentGear.LOGGER.debug("Not recalculating stats for {}'s {}", player, stack);
             fixStatsCompound(propertiesCompound);
@@ -159,6 +183,110 @@ public final class GearData {
         updateRenderingInfo(stack, parts);
     }
 
+    private static void writeStats(ItemStack stack, @Nullable PlayerEntity player, CompoundNBT propertiesCompound, StatRecalculationCache.Entry entry) {
+        // For debugging
+        Map<ItemStat, Float> oldStatValues = player != null ? getCurrentStatsForDebugging(stack) : null;
+
+        // Calculate and write stats
+        final float damageRatio = (float) stack.getDamage() / (float) stack.getMaxDamage();
+        CompoundNBT statsCompound = new CompoundNBT();
+        for (int i = 0; i < entry.stats.length; ++i) {
+            final ItemStat stat = entry.stats[i];
+            // Allow traits to modify stat
+            final float withTraits = TraitHelper.onGetStat(stack, player, stat, entry.baseValues[i], damageRatio);
+            final float value = Config.Common.getStatWithMultiplier(stat, withTraits);
+            // SilentGear.log.debug(stat, value);
+            ResourceLocation statId = Objects.requireNonNull(stat.getRegistryName());
+            propertiesCompound.remove(statId.getPath()); // Remove old keys
+            statsCompound.putFloat(statId.toString(), stat.clampValue(value));
+        }
+        propertiesCompound.put(NBT_STATS, statsCompound);
+
+        if (player != null) {
+            printStatsForDebugging(stack, entry.modifiers, oldStatValues);
+        }
+    }
+
+    /**
+     * Computes a hash of everything the item's stats depend on, other than damage. If this matches
+     * the stored fingerprint, recalculating would not change anything.
+     */
+    private static int computeFingerprint(ListNBT partsTag) {
+        return 31 * partsTag.hashCode() + getFingerprintBase();
+    }
+
+    /**
+     * Gets the part of the fingerprint which is the same for all items: loaded data, mod version,
+     * and stat multiplier configs. Computed once after each reload or config change.
+     */
+    private static int getFingerprintBase() {
+        Integer base = fingerprintBase;
+        if (base == null) {
+            int hash = MaterialManager.getDataHash();
+            hash = 31 * hash + PartManager.getDataHash();
+            hash = 31 * hash + TraitManager.getDataHash();
+            hash = 31 * hash + SilentGear.getVersion().hashCode();
+            for (ItemStat stat : ItemStats.allStatsOrdered()) {
+                hash = 31 * hash + Float.floatToIntBits(Config.Common.getStatWithMultiplier(stat, 1f));
+            }
+            base = hash;
+            fingerprintBase = base;
+        }
+        return base;
+    }
+
+    // Read-only, so checking an item never adds NBT to it
+    private static boolean isFingerprintCurrent(ItemStack stack) {
+        CompoundNBT root = stack.getChildTag(NBT_ROOT);
+        if (root == null) return false;
+
+        CompoundNBT properties = root.getCompound(NBT_ROOT_PROPERTIES);
+        ListNBT partsTag = root.getCompound(NBT_ROOT_CONSTRUCTION).getList(NBT_CONSTRUCTION_PARTS, 10);
+        return properties.contains(NBT_FINGERPRINT) && properties.getInt(NBT_FINGERPRINT) == computeFingerprint(partsTag);
+    }
+
+    /**
+     * Discards cached stat calculation data for all gear items. Called when materials, parts, or
+     * traits are reloaded or synced and when configs change, since the cached data may no longer
+     * be valid.
+     */
+    public static void clearStatCaches() {
+        fingerprintBase = null;
+        StatRecalculationCache.clear();
+        // Decoded parts reference the old part and material objects
+        CONSTRUCTION_PARTS_CACHE.invalidateAll();
+        // Part and trait indices change on reload
+        GearSummary.clear();
+        // Material and part names may have changed
+        GearHelper.clearDisplayNameCache();
+        // Traits may add different modifiers
+        GearHelper.clearAttributeModifierCache();
+    }
+
+    /**
+     * Convert construction parts from older formats to the current format. This is one-way, older
+     * versions of the mod will not be able to read the parts. Parts which cannot be read right now
+     * (missing data packs, etc.) are kept as they are.
+     */
+    private static void migrateConstructionFormat(ItemStack stack) {
+        CompoundNBT root = stack.getChildTag(NBT_ROOT);
+        if (root == null || !root.contains(NBT_ROOT_CONSTRUCTION, 10)) return;
+        CompoundNBT construction = root.getCompound(NBT_ROOT_CONSTRUCTION);
+        if (construction.getByte(NBT_CONSTRUCTION_FORMAT) >= CONSTRUCTION_FORMAT) return;
+
+        ListNBT oldList = construction.getList(NBT_CONSTRUCTION_PARTS, 10);
+        ListNBT newList = new ListNBT();
+        for (INBT nbt : oldList) {
+            CompoundNBT partCompound = (CompoundNBT) nbt;
+            PartData part = PartData.isCompact(partCompound) ? null : PartData.read(partCompound);
+            newList.add(part != null ? part.writeCompact(new CompoundNBT()) : partCompound);
+        }
+
+        CONSTRUCTION_PARTS_CACHE.invalidate(oldList);
+        construction.put(NBT_CONSTRUCTION_PARTS, newList);
+        construction.putByte(NBT_CONSTRUCTION_FORMAT, CONSTRUCTION_FORMAT);
+    }
+
     private static void fixStatsCompound(CompoundNBT properties) {
         // Update the stats NBT to 1.7.0+ format
         CompoundNBT statsTag = properties.getCompound("Stats");
@@ -171,6 +299,8 @@ public final class GearData {
                 statsTag.putFloat(statId.toString(), value);
             }
         }
+        STATS_VIEW_CACHE.invalidate(statsTag);
+        GearHelper.invalidateAttributeModifiers(statsTag);
         properties.put("Stats", statsTag);
     }
 
@@ -187,11 +317,12 @@ public final class GearData {
         return null;
     }
 
-    private static void printStatsForDebugging(ItemStack stack, StatModifierMap stats, @Nullable Map<ItemStat, Float> oldStats) {
+    private static void printStatsForDebugging(ItemStack stack, StatModifierAccumulator modifiers, @Nullable Map<ItemStat, Float> oldStats) {
         // Prints stats that have changed for debugging purposes
         if (oldStats != null && SilentGear.LOGGER.isDebugEnabled()) {
             Map<ItemStat, Float> newStats = getCurrentStatsForDebugging(stack);
             assert newStats != null;
+            StatModifierMap stats = modifiers.toMap();
 
             for (ItemStat stat : stats.getStats()) {
                 float oldValue = oldStats.get(stat);
@@ -323,9 +454,39 @@ public final class GearData {
     }
 
     public static float getStat(ItemStack stack, ItemStat stat) {
-        CompoundNBT tags = getData(stack, NBT_ROOT_PROPERTIES).getCompound(NBT_STATS);
-        String key = NameUtils.from(stat).toString();
-        return tags.contains(key) ? tags.getFloat(key) : stat.getDefaultValue();
+        return getStatsView(stack).get(stat);
+    }
+
+    /**
+     * Gets all stats of the gear item in decoded form. The view is cached until the stats are
+     * recalculated, so this is much cheaper than reading the stats NBT directly.
+     *
+     * @param stack The gear item
+     * @return The item's stats, or {@link GearStatsView#EMPTY} if none have been calculated
+     */
+    public static GearStatsView getStatsView(ItemStack stack) {
+        CompoundNBT properties = getData(stack, NBT_ROOT_PROPERTIES);
+        if (!properties.contains(NBT_STATS, 10)) {
+            return GearStatsView.EMPTY;
+        }
+
+        CompoundNBT tags = properties.getCompound(NBT_STATS);
+        GearStatsView view = STATS_VIEW_CACHE.getIfPresent(tags);
+        if (view == null) {
+            view = GearStatsView.read(tags);
+            STATS_VIEW_CACHE.put(tags, view);
+        }
+        return view;
+    }
+
+    @Nullable
+    static CompoundNBT getStatsCompound(ItemStack stack) {
+        CompoundNBT properties = getData(stack, NBT_ROOT_PROPERTIES);
+        return properties.contains(NBT_STATS, 10) ? properties.getCompound(NBT_STATS) : null;
+    }
+
+    static int getFingerprint(ItemStack stack) {
+        return getData(stack, NBT_ROOT_PROPERTIES).getInt(NBT_FINGERPRINT);
     }
 
     public static int getStatInt(ItemStack stack, ItemStat stat) {
@@ -344,7 +505,25 @@ public final class GearData {
         if (!GearHelper.isGear(stack)) return PartDataList.empty();
 
         CompoundNBT tags = getData(stack, NBT_ROOT_CONSTRUCTION);
-        ListNBT tagList = tags.getList(NBT_CONSTRUCTION_PARTS, 10);
+        return PartDataList.of(getDecodedParts(tags.getList(NBT_CONSTRUCTION_PARTS, 10)).parts);
+    }
+
+    private static DecodedParts getDecodedParts(ListNBT tagList) {
+        if (tagList.isEmpty()) {
+            return DecodedParts.EMPTY;
+        }
+
+        DecodedParts decoded = CONSTRUCTION_PARTS_CACHE.getIfPresent(tagList);
+        if (decoded == null) {
+            List<CompoundNBT> partTags = new ArrayList<>();
+            PartDataList parts = readConstructionParts(tagList, partTags);
+            decoded = new DecodedParts(ImmutableList.copyOf(parts), ImmutableList.copyOf(partTags));
+            CONSTRUCTION_PARTS_CACHE.put(tagList, decoded);
+        }
+        return decoded;
+    }
+
+    private static PartDataList readConstructionParts(ListNBT tagList, List<CompoundNBT> partTags) {
         PartDataList list = PartDataList.of();
         Map<PartType, Integer> partCounts = new HashMap<>();
 
@@ -361,6 +540,7 @@ public final class GearData {
                     if (count < type.getMaxPerItem()) {
                         list.add(part);
                         partCounts.put(type, count + 1);
+                        partTags.add(partCompound);
                     }
                 }
             }
@@ -536,11 +716,8 @@ public final class GearData {
         CompoundNBT tags = getData(stack, NBT_ROOT_CONSTRUCTION);
         ListNBT tagList = tags.getList(NBT_CONSTRUCTION_PARTS, 10);
 
-        for (INBT nbt : tagList) {
-            if (nbt instanceof CompoundNBT) {
-                PartData part = PartData.read((CompoundNBT) nbt);
-                if (part != null && part.getType() == type) return part;
-            }
+        for (PartData part : getDecodedParts(tagList).parts) {
+            if (part.getType() == type) return part;
         }
         return null;
     }
@@ -630,8 +807,8 @@ public final class GearData {
     }
 
     /**
-     * Determine if the gear has the specified part. This scans the construction NBT directly for
-     * speed, no part data list is created. Compares part registry names only.
+     * Determine if the gear has the specified part. This checks a cached summary of the construction
+     * NBT, no part data list is created. Compares part registry names only.
      *
      * @param gear   The gear item
      * @param partId The ID of the part
@@ -645,8 +822,8 @@ public final class GearData {
     }
 
     /**
-     * Determine if the gear has the specified part. This scans the construction NBT directly for
-     * speed, no part data list is created. Compares part registry names only.
+     * Determine if the gear has the specified part. This checks a cached summary of the construction
+     * NBT, no part data list is created. Compares part registry names only.
      *
      * @param gear       The gear item
      * @param partId     The ID of the part
@@ -661,8 +838,8 @@ public final class GearData {
     }
 
     /**
-     * Determine if the gear has the specified part. This scans the construction NBT directly for
-     * speed, no part data list is created. Compares part registry names only.
+     * Determine if the gear has the specified part. This checks a cached summary of the construction
+     * NBT, no part data list is created. Compares part registry names only.
      *
      * @param gear The gear item
      * @param part The part to check for
@@ -673,8 +850,8 @@ public final class GearData {
     }
 
     /**
-     * Determine if the gear has the specified part. This scans the construction NBT directly for
-     * speed, no part data list is created. Compares part registry names and checks grades.
+     * Determine if the gear has the specified part. Compares part registry names and checks grades.
+     * If any grade is accepted, this is a single lookup in a cached summary of the parts.
      *
      * @param gear       The gear item
      * @param part       The part to check for
@@ -690,14 +867,18 @@ public final class GearData {
 
         CompoundNBT tags = getData(gear, NBT_ROOT_CONSTRUCTION);
         ListNBT tagList = tags.getList(NBT_CONSTRUCTION_PARTS, 10);
-        String upgradeName = part.getId().toString();
+        ResourceLocation upgradeName = part.getId();
+
+        if (gradeRange == MaterialGrade.Range.OPEN) {
+            return GearSummary.hasPart(tagList, upgradeName);
+        }
 
         for (INBT nbt : tagList) {
             if (nbt instanceof CompoundNBT) {
                 CompoundNBT partCompound = (CompoundNBT) nbt;
-                String partKey = partCompound.getString(PartData.NBT_ID);
+                ResourceLocation partKey = PartData.readPartId(partCompound);
                 MaterialGrade grade = MaterialGrade.fromString(partCompound.getString("Grade"));
-                if (partKey.equals(upgradeName) && gradeRange.test(grade)) {
+                if (upgradeName.equals(partKey) && gradeRange.test(grade)) {
                     return true;
                 }
             }
@@ -731,18 +912,27 @@ public final class GearData {
         }
 
         CompoundNBT tags = getData(stack, NBT_ROOT_CONSTRUCTION);
+        CONSTRUCTION_PARTS_CACHE.invalidate(tags.getList(NBT_CONSTRUCTION_PARTS, 10));
         ListNBT tagList = new ListNBT();
 
         // Mains must be first in the list!
         parts.stream().filter(p -> p.getType() == PartType.MAIN)
-                .map(p -> p.write(new CompoundNBT()))
+                .map(GearData::writePart)
                 .forEach(tagList::add);
         // Write everything else in any order
         parts.stream().filter(p -> p.getType() != PartType.MAIN)
-                .map(p -> p.write(new CompoundNBT()))
+                .map(GearData::writePart)
                 .forEach(tagList::add);
 
         tags.put(NBT_CONSTRUCTION_PARTS, tagList);
+        tags.putByte(NBT_CONSTRUCTION_FORMAT, CONSTRUCTION_FORMAT);
+    }
+
+    private static CompoundNBT writePart(IPartData part) {
+        if (part instanceof PartData) {
+            return ((PartData) part).writeCompact(new CompoundNBT());
+        }
+        return part.write(new CompoundNBT());
     }
 
     //endregion
@@ -782,6 +972,10 @@ public final class GearData {
         return rootTag.getCompound(compoundKey);
     }
 
+    static ListNBT getConstructionPartsList(ItemStack stack) {
+        return getData(stack, NBT_ROOT_CONSTRUCTION).getList(NBT_CONSTRUCTION_PARTS, 10);
+    }
+
     static CompoundNBT getPropertiesData(ItemStack stack) {
         return getData(stack, NBT_ROOT_PROPERTIES);
     }
@@ -824,17 +1018,78 @@ public final class GearData {
         getData(stack, NBT_ROOT_CONSTRUCTION).putInt(NBT_REPAIR_COUNT, getRepairCount(stack) + amount);
     }
 
+    /**
+     * Construction parts decoded from NBT, along with the compound each part was read from. Shared
+     * between callers, so must not be modified.
+     */
+    private static final class DecodedParts {
+        private static final DecodedParts EMPTY = new DecodedParts(ImmutableList.of(), ImmutableList.of());
+
+        private final List<PartData> parts;
+        private final List<CompoundNBT> tags;
+
+        private DecodedParts(List<PartData> parts, List<CompoundNBT> tags) {
+            this.parts = parts;
+            this.tags = tags;
+        }
+    }
+
     @Mod.EventBusSubscriber(modid = SilentGear.MOD_ID)
     public static final class EventHandler {
+        // Max time spent on recalculating items from login each tick
+        private static final long RECALC_BUDGET_NANOS = 2_000_000L;
+        private static final Queue<PendingRecalc> PENDING_RECALCS = new ArrayDeque<>();
+
         private EventHandler() { }
 
         @SubscribeEvent
         public static void onPlayerLoggedIn(PlayerLoggedInEvent event) {
+            // Only items which are out of date are recalculated, spread over the following ticks
             PlayerEntity player = event.getPlayer();
             StackList.from(player.inventory)
                     .stream()
-                    .filter(s -> s.getItem() instanceof ICoreItem)
-                    .forEach(s -> recalculateStats(s, player));
+                    .filter(s -> s.getItem() instanceof ICoreItem && !isFingerprintCurrent(s))
+                    .forEach(s -> PENDING_RECALCS.add(new PendingRecalc(player, s)));
+        }
+
+        @SubscribeEvent
+        public static void onPlayerLoggedOut(PlayerLoggedOutEvent event) {
+            PlayerEntity player = event.getPlayer();
+            PENDING_RECALCS.removeIf(recalc -> recalc.player == player);
+        }
+
+        @SubscribeEvent
+        public static void onServerStopping(FMLServerStoppingEvent event) {
+            PENDING_RECALCS.clear();
+        }
+
+        @SubscribeEvent
+        public static void onServerTick(TickEvent.ServerTickEvent event) {
+            if (event.phase != TickEvent.Phase.END || PENDING_RECALCS.isEmpty()) return;
+
+            long start = System.nanoTime();
+            do {
+                PENDING_RECALCS.remove().run();
+            } while (!PENDING_RECALCS.isEmpty() && System.nanoTime() - start < RECALC_BUDGET_NANOS);
+        }
+
+        private static final class PendingRecalc {
+            private final PlayerEntity player;
+            private final ItemStack stack;
+
+            private PendingRecalc(PlayerEntity player, ItemStack stack) {
+                this.player = player;
+                this.stack = stack;
+            }
+
+            private void run() {
+                // Skip players who left or died since logging in
+                if (player.removed) return;
+
+                if (GearHelper.isGear(stack) && !isFingerprintCurrent(stack)) {
+                    recalculateStats(stack, player);
+                }
+            }
         }
     }
 }
@@ -31,7 +31,6 @@ import net.silentchaos512.gear.parts.PartManager;
 
 import java.util.List;
 import java.util.Optional;
-import java.util.stream.Collectors;
 
 public final class GearGenerator {
     private GearGenerator() {
@@ -43,15 +42,13 @@ public final class GearGenerator {
     }
 
     public static Optional<PartData> getRandomPart(GearType gearType, PartType partType, final int partTier) {
-        Optional<PartData> optional = partType.getCompoundPartItem(gearType)
-                .map(item -> PartManager.from(new ItemStack(item)))
+        PartManager.Snapshot parts = PartManager.getSnapshot();
+        Optional<PartData> optional = parts.getCompoundPart(partType, gearType)
                 .map(part -> part.randomizeData(gearType, partTier));
 
         if (!optional.isPresent()) {
             // No compound part available? Try to find a simple part.
-            List<IGearPart> partsOfTier = PartManager.getValues().stream()
-                    .filter(part -> partTier == -1 || partTier == part.getTier())
-                    .collect(Collectors.toList());
+            List<IGearPart> partsOfTier = parts.getPartsOfTier(partTier);
 
             if (!partsOfTier.isEmpty()) {
                 IGearPart random = partsOfTier.get(SilentGear.random.nextInt(partsOfTier.size()));
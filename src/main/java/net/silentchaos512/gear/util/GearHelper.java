@@ -1,5 +1,8 @@
 package net.silentchaos512.gear.util;
 
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.collect.ImmutableMultimap;
 import com.google.common.collect.LinkedHashMultimap;
 import com.google.common.collect.Multimap;
 import net.minecraft.block.BlockState;
@@ -14,6 +17,8 @@ import net.minecraft.entity.player.ServerPlayerEntity;
 import net.minecraft.inventory.EquipmentSlotType;
 import net.minecraft.item.*;
 import net.minecraft.item.crafting.Ingredient;
+import net.minecraft.nbt.CompoundNBT;
+import net.minecraft.nbt.ListNBT;
 import net.minecraft.util.*;
 import net.minecraft.util.math.BlockPos;
 import net.minecraft.util.text.ITextComponent;
@@ -51,6 +56,7 @@ import javax.annotation.Nullable;
 import java.util.*;
 import java.util.function.BiConsumer;
 import java.util.function.Function;
+import java.util.function.Supplier;
 
 /**
  * Contains various methods used by gear items. Many are delegates for item overrides, to cut down
@@ -66,6 +72,17 @@ public final class GearHelper {
     private static final float BROKEN_DESTROY_SPEED = 0.25f;
     private static final int DAMAGE_FACTOR_LEVELS = 10;
 
+    // Display names, keyed by the identity of the construction parts list. Text components are
+    // translated when rendered, so the same names are valid for any language.
+    private static final Cache<ListNBT, ITextComponent> DISPLAY_NAME_CACHE = CacheBuilder.newBuilder()
+            .weakKeys()
+            .build();
+    // Attribute modifiers by slot and broken state, keyed by the identity of the stats compound.
+    // Recalculating writes a new stats compound, so entries are never stale.
+    private static final Cache<CompoundNBT, AttributeModifierEntry> ATTRIBUTE_MODIFIER_CACHE = CacheBuilder.newBuilder()
+            .weakKeys()
+            .build();
+
     private GearHelper() {}
 
     public static Optional<ICoreItem> getItem(ItemStack gear) {
@@ -129,10 +146,58 @@ public final class GearHelper {
     }
 
     public static Multimap<Attribute, AttributeModifier> getAttributeModifiers(EquipmentSlotType slot, ItemStack stack, boolean addStandardMainHandMods) {
-        // Need to use this version to prevent stack overflow
-        @SuppressWarnings("deprecation") Multimap<Attribute, AttributeModifier> map = LinkedHashMultimap.create(stack.getItem().getAttributeModifiers(slot));
+        return getCachedAttributeModifiers(slot, stack, () -> {
+            // Need to use this version to prevent stack overflow
+            @SuppressWarnings("deprecation") Multimap<Attribute, AttributeModifier> map = LinkedHashMultimap.create(stack.getItem().getAttributeModifiers(slot));
+
+            return getAttributeModifiers(slot, stack, map, addStandardMainHandMods);
+        });
+    }
+
+    /**
+     * Gets the attribute modifiers of a gear item for a slot, or builds them if they are not
+     * cached. Modifiers are cached until the item's stats are recalculated (or data is reloaded),
+     * separately for each slot and for broken and unbroken states. The builder must depend only on
+     * the item's stats, traits, and broken state.
+     *
+     * @param slot    The equipment slot
+     * @param stack   The gear item
+     * @param builder Builds the modifiers if they are not cached
+     * @return An immutable multimap of modifiers
+     */
+    public static Multimap<Attribute, AttributeModifier> getCachedAttributeModifiers(EquipmentSlotType slot, ItemStack stack, Supplier<Multimap<Attribute, AttributeModifier>> builder) {
+        CompoundNBT statsTag = GearData.getStatsCompound(stack);
+        if (statsTag == null) {
+            // Stats not calculated yet
+            return ImmutableMultimap.copyOf(builder.get());
+        }
+
+        int fingerprint = GearData.getFingerprint(stack);
+        AttributeModifierEntry entry = ATTRIBUTE_MODIFIER_CACHE.getIfPresent(statsTag);
+        if (entry == null || entry.fingerprint != fingerprint) {
+            entry = new AttributeModifierEntry(fingerprint);
+            ATTRIBUTE_MODIFIER_CACHE.put(statsTag, entry);
+        }
+
+        int index = 2 * slot.ordinal() + (isBroken(stack) ? 1 : 0);
+        Multimap<Attribute, AttributeModifier> modifiers = entry.modifiers[index];
+        if (modifiers == null) {
+            modifiers = ImmutableMultimap.copyOf(builder.get());
+            entry.modifiers[index] = modifiers;
+        }
+        return modifiers;
+    }
+
+    static void invalidateAttributeModifiers(CompoundNBT statsTag) {
+        ATTRIBUTE_MODIFIER_CACHE.invalidate(statsTag);
+    }
 
-        return getAttributeModifiers(slot, stack, map, addStandardMainHandMods);
+    /**
+     * Discards all cached attribute modifiers. Called when data is reloaded, since traits may add
+     * different modifiers.
+     */
+    public static void clearAttributeModifierCache() {
+        ATTRIBUTE_MODIFIER_CACHE.invalidateAll();
     }
 
     public static Multimap<Attribute, AttributeModifier> getAttributeModifiers(EquipmentSlotType slot, ItemStack stack, Multimap<Attribute, AttributeModifier> map) {
@@ -155,11 +220,21 @@ public final class GearHelper {
             });
         }
 
-        TraitHelper.getCachedTraits(stack).forEach((trait, level) -> trait.onGetAttributeModifiers(new TraitActionContext(null, level, stack), map, slot));
+        TraitHelper.getCachedTraitsView(stack).forEach((trait, level) -> trait.onGetAttributeModifiers(new TraitActionContext(null, level, stack), map, slot));
 
         return map;
     }
 
+    private static final class AttributeModifierEntry {
+        private final int fingerprint;
+        @SuppressWarnings("unchecked")
+        private final Multimap<Attribute, AttributeModifier>[] modifiers = new Multimap[2 * EquipmentSlotType.values().length];
+
+        private AttributeModifierEntry(int fingerprint) {
+            this.fingerprint = fingerprint;
+        }
+    }
+
     private static void replaceAttributeModifierInMap(Multimap<Attribute, AttributeModifier> map, Attribute key, float value) {
         if (map.containsKey(key)) {
             Iterator<AttributeModifier> iter = map.get(key).iterator();
@@ -199,8 +274,7 @@ public final class GearHelper {
 
         ServerPlayerEntity player = entity instanceof ServerPlayerEntity ? (ServerPlayerEntity) entity : null;
         final int preTraitAmount = amount;
-        amount = (int) TraitHelper.activateTraits(stack, preTraitAmount, (trait, level, val) ->
-                trait.onDurabilityDamage(new TraitActionContext(player, level, stack), (int) val));
+        amount = (int) TraitHelper.onDurabilityDamage(stack, player, preTraitAmount);
 
         final int maxDamage = stack.getMaxDamage();
         final int preDamageFactor = getDamageFactor(stack, maxDamage);
@@ -407,7 +481,7 @@ public final class GearHelper {
 
     public static ActionResultType onItemUse(ItemUseContext context) {
         ActionResultType ret = ActionResultType.PASS;
-        Map<ITrait, Integer> traits = TraitHelper.getCachedTraits(context.getItem());
+        Map<ITrait, Integer> traits = TraitHelper.getCachedTraitsView(context.getItem());
         for (Map.Entry<ITrait, Integer> entry : traits.entrySet()) {
             ActionResultType result = entry.getKey().onItemUse(context, entry.getValue());
             if (result != ActionResultType.PASS) {
@@ -474,6 +548,10 @@ public final class GearHelper {
     }
 
     public static ITextComponent getDisplayName(ItemStack gear) {
+        ListNBT partsTag = GearData.getConstructionPartsList(gear);
+        ITextComponent cached = DISPLAY_NAME_CACHE.getIfPresent(partsTag);
+        if (cached != null) return cached.deepCopy();
+
         PartData part = GearData.getPrimaryPart(gear);
         if (part == null) return new TranslationTextComponent(gear.getTranslationKey());
 
@@ -491,19 +569,29 @@ public final class GearHelper {
         }
 
         // Prefixes
-        // TODO: Probably should cache this somehow...
-        for (ITextComponent t : getNamePrefixes(gear, GearData.getConstructionParts(gear))) {
+        GearNamePrefixesEvent event = getNamePrefixes(gear, GearData.getConstructionParts(gear));
+        for (ITextComponent t : event.getPrefixes()) {
             // TODO: Spaces are probably inappropriate for some languages?
             result = t.deepCopy().func_230529_a_(new StringTextComponent(" ")).func_230529_a_(result);
         }
 
-        return result;
+        if (!event.isDynamic()) {
+            DISPLAY_NAME_CACHE.put(partsTag, result);
+        }
+        return result.deepCopy();
     }
 
-    private static Collection<ITextComponent> getNamePrefixes(ItemStack gear, PartDataList parts) {
+    private static GearNamePrefixesEvent getNamePrefixes(ItemStack gear, PartDataList parts) {
         GearNamePrefixesEvent event = new GearNamePrefixesEvent(gear, parts);
         MinecraftForge.EVENT_BUS.post(event);
-        return event.getPrefixes();
+        return event;
+    }
+
+    /**
+     * Discards all cached display names. Called when data is reloaded or the language changes.
+     */
+    public static void clearDisplayNameCache() {
+        DISPLAY_NAME_CACHE.invalidateAll();
     }
 
     public static Collection<IPartData> getExamplePartsFromRecipe(GearType gearType, Iterable<Ingredient> ingredients) {
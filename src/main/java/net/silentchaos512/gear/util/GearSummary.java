@@ -0,0 +1,237 @@
+package net.silentchaos512.gear.util;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.collect.ImmutableMap;
+import it.unimi.dsi.fastutil.ints.IntArrayList;
+import it.unimi.dsi.fastutil.ints.IntList;
+import net.minecraft.nbt.CompoundNBT;
+import net.minecraft.nbt.INBT;
+import net.minecraft.nbt.ListNBT;
+import net.minecraft.util.ResourceLocation;
+import net.silentchaos512.gear.api.traits.ITrait;
+import net.silentchaos512.gear.parts.PartData;
+import net.silentchaos512.gear.parts.PartManager;
+import net.silentchaos512.gear.traits.TraitManager;
+
+import javax.annotation.Nullable;
+import java.util.*;
+
+/**
+ * Precomputed summaries of a gear item's parts and traits, for checks which run very frequently
+ * (every damage change, mining speed query, etc.) The parts summary is a bit set of part indices
+ * (see {@link PartManager#getIndex}) and the traits summary is the decoded traits list along with
+ * an array of trait levels by trait index (see {@link TraitManager#getIndex}). Once a summary
+ * exists, lookups are a single bit or array probe and iterating traits needs no NBT access.
+ * <p>
+ * Summaries are keyed by the identity of the construction parts and traits lists. Summaries are
+ * written when stats are recalculated, or built from NBT the first time they are needed.
+ */
+final class GearSummary {
+    private static final Cache<ListNBT, BitSet> PARTS = CacheBuilder.newBuilder()
+            .weakKeys()
+            .build();
+    private static final Cache<ListNBT, Traits> TRAITS = CacheBuilder.newBuilder()
+            .weakKeys()
+            .build();
+
+    private GearSummary() {
+        throw new IllegalAccessError("Utility class");
+    }
+
+    static boolean hasPart(ListNBT partsTag, ResourceLocation partId) {
+        int index = PartManager.getIndex(partId);
+        return index >= 0 && getParts(partsTag).get(index);
+    }
+
+    static int getTraitLevel(ListNBT traitsTag, ResourceLocation traitId) {
+        int index = TraitManager.getIndex(traitId);
+        Traits traits = getTraits(traitsTag);
+        if (index >= 0) {
+            return traits.getLevel(index);
+        }
+        return traits.unloaded.isEmpty() ? 0 : traits.unloaded.getOrDefault(traitId.toString(), 0);
+    }
+
+    /**
+     * Check if the traits list has an entry for the trait, at any level (including zero) and
+     * whether or not the trait is loaded.
+     */
+    static boolean hasTrait(ListNBT traitsTag, ResourceLocation traitId) {
+        int index = TraitManager.getIndex(traitId);
+        Traits traits = getTraits(traitsTag);
+        if (index >= 0) {
+            return traits.present.get(index);
+        }
+        return !traits.unloaded.isEmpty() && traits.unloaded.containsKey(traitId.toString());
+    }
+
+    private static BitSet getParts(ListNBT partsTag) {
+        BitSet parts = PARTS.getIfPresent(partsTag);
+        if (parts == null) {
+            parts = new BitSet();
+            for (INBT nbt : partsTag) {
+                if (nbt instanceof CompoundNBT) {
+                    ResourceLocation partId = PartData.readPartId((CompoundNBT) nbt);
+                    int index = partId != null ? PartManager.getIndex(partId) : -1;
+                    if (index >= 0) {
+                        parts.set(index);
+                    }
+                }
+            }
+            PARTS.put(partsTag, parts);
+        }
+        return parts;
+    }
+
+    /**
+     * Gets the decoded traits list. Traits which are not loaded are left out, but their levels are
+     * kept by name for {@link #getTraitLevel} and {@link #hasTrait}.
+     *
+     * @param traitsTag The traits list from the gear's properties
+     * @return The traits summary
+     */
+    static Traits getTraits(ListNBT traitsTag) {
+        if (traitsTag.isEmpty()) {
+            return Traits.EMPTY;
+        }
+
+        Traits traits = TRAITS.getIfPresent(traitsTag);
+        if (traits == null) {
+            List<ITrait> list = new ArrayList<>(traitsTag.size());
+            IntList levels = new IntArrayList(traitsTag.size());
+            Map<String, Integer> unloaded = new HashMap<>();
+            for (INBT nbt : traitsTag) {
+                if (nbt instanceof CompoundNBT) {
+                    CompoundNBT tagCompound = (CompoundNBT) nbt;
+                    String name = tagCompound.getString("Name");
+                    ITrait trait = TraitManager.get(name);
+                    if (trait != null) {
+                        list.add(trait);
+                        levels.add(tagCompound.getByte("Level"));
+                    } else {
+                        unloaded.putIfAbsent(name, (int) tagCompound.getByte("Level"));
+                    }
+                }
+            }
+            traits = new Traits(list.toArray(new ITrait[0]), levels.toIntArray(), unloaded);
+            TRAITS.put(traitsTag, traits);
+        }
+        return traits;
+    }
+
+    /**
+     * Store the traits summary of a newly written traits list, so it does not need to be read back
+     * from NBT.
+     *
+     * @param traitsTag The traits list written to the item
+     * @param traits    The traits and levels the list was written from
+     */
+    static void putTraits(ListNBT traitsTag, Map<ITrait, Integer> traits) {
+        ITrait[] array = new ITrait[traits.size()];
+        int[] levels = new int[traits.size()];
+        int i = 0;
+        for (Map.Entry<ITrait, Integer> entry : traits.entrySet()) {
+            array[i] = entry.getKey();
+            // Stored as a byte in NBT as well
+            levels[i] = entry.getValue().byteValue();
+            ++i;
+        }
+        TRAITS.put(traitsTag, new Traits(array, levels, Collections.emptyMap()));
+    }
+
+    /**
+     * Discards all summaries. Needed when parts or traits are reloaded, because indices change.
+     */
+    static void clear() {
+        PARTS.invalidateAll();
+        TRAITS.invalidateAll();
+    }
+
+    /**
+     * A decoded traits list. The arrays are in the same order as the NBT list and must not be
+     * modified.
+     */
+    static final class Traits {
+        static final Traits EMPTY = new Traits(new ITrait[0], new int[0], Collections.emptyMap());
+
+        final ITrait[] traits;
+        final int[] levels;
+        // Traits which need onUpdate calls, see TraitTickScheduler
+        final ITrait[] tickingTraits;
+        final int[] tickingLevels;
+        final int[] tickIntervals;
+        // Level by trait index, the first entry wins if a trait is listed more than once
+        private final byte[] levelsByIndex;
+        // Trait indices which have an entry, at any level
+        private final BitSet present = new BitSet();
+        // Levels of entries whose trait is not loaded, by name
+        private final Map<String, Integer> unloaded;
+        @Nullable private Map<ITrait, Integer> map;
+        @Nullable private TraitChain chain;
+
+        private Traits(ITrait[] traits, int[] levels, Map<String, Integer> unloaded) {
+            this.traits = traits;
+            this.levels = levels;
+            this.unloaded = unloaded;
+
+            int size = 0;
+            int[] indices = new int[traits.length];
+            for (int i = 0; i < traits.length; ++i) {
+                indices[i] = TraitManager.getIndex(traits[i].getId());
+                size = Math.max(size, indices[i] + 1);
+            }
+            this.levelsByIndex = new byte[size];
+            for (int i = traits.length - 1; i >= 0; --i) {
+                if (indices[i] >= 0) {
+                    this.levelsByIndex[indices[i]] = (byte) levels[i];
+                    this.present.set(indices[i]);
+                }
+            }
+
+            List<ITrait> ticking = new ArrayList<>();
+            IntList tickingLevels = new IntArrayList();
+            IntList tickIntervals = new IntArrayList();
+            for (int i = 0; i < traits.length; ++i) {
+                int interval = TraitTickScheduler.getUpdateInterval(traits[i]);
+                if (interval > 0) {
+                    ticking.add(traits[i]);
+                    tickingLevels.add(levels[i]);
+                    tickIntervals.add(interval);
+                }
+            }
+            this.tickingTraits = ticking.toArray(new ITrait[0]);
+            this.tickingLevels = tickingLevels.toIntArray();
+            this.tickIntervals = tickIntervals.toIntArray();
+        }
+
+        TraitChain getChain() {
+            if (chain == null) {
+                chain = new TraitChain(traits, levels);
+            }
+            return chain;
+        }
+
+        int getLevel(int traitIndex) {
+            return traitIndex < levelsByIndex.length ? levelsByIndex[traitIndex] : 0;
+        }
+
+        /**
+         * Gets the traits with a level above zero as an immutable map, in list order.
+         *
+         * @return Map of traits to levels
+         */
+        Map<ITrait, Integer> asMap() {
+            if (map == null) {
+                Map<ITrait, Integer> result = new LinkedHashMap<>();
+                for (int i = 0; i < traits.length; ++i) {
+                    if (levels[i] > 0) {
+                        result.put(traits[i], levels[i]);
+                    }
+                }
+                map = ImmutableMap.copyOf(result);
+            }
+            return map;
+        }
+    }
+}
@@ -0,0 +1,155 @@
+package net.silentchaos512.gear.util;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+import net.minecraft.item.Item;
+import net.minecraft.item.ItemStack;
+import net.minecraft.item.crafting.Ingredient;
+import net.minecraft.tags.ITagCollection;
+import net.minecraft.tags.ItemTags;
+
+import javax.annotation.Nullable;
+import java.util.*;
+import java.util.function.Function;
+
+/**
+ * Maps items to the values (materials, parts, ...) whose ingredients could match them, so lookups
+ * by item only need to test a few candidates instead of every value. Simple ingredients (see {@link
+ * Ingredient#isSimple()}) only check the item, so they are expanded into their matching items,
+ * including tags. Other ingredients (NBT ingredients, custom types) could match anything, so they
+ * are kept in a fallback list and tested for every item. Candidates are always tested in the same
+ * order as the values the index was built from. A simple ingredient matches every stack of its
+ * items, so candidates found through one are not tested again. If the first candidate for an item
+ * is one of these, lookups for that item are a single map lookup.
+ * <p>
+ * An index must be rebuilt when the values or their ingredients change. It also becomes invalid
+ * when item tags are reloaded or synced, see {@link #isValid()}.
+ *
+ * @param <T> The type of value
+ */
+public final class IngredientIndex<T> {
+    private final Function<T, Ingredient> ingredientGetter;
+    private final Map<Item, List<T>> byItem;
+    // Candidates which match every stack of the item, by item
+    private final Map<Item, Set<T>> exactByItem;
+    // The first candidate of items where it matches every stack of the item
+    private final Map<Item, T> firstExactByItem;
+    private final List<T> fallback;
+    private final ITagCollection<Item> tags;
+
+    private IngredientIndex(Function<T, Ingredient> ingredientGetter, Map<Item, List<T>> byItem, Map<Item, Set<T>> exactByItem, Map<Item, T> firstExactByItem, List<T> fallback, ITagCollection<Item> tags) {
+        this.ingredientGetter = ingredientGetter;
+        this.byItem = byItem;
+        this.exactByItem = exactByItem;
+        this.firstExactByItem = firstExactByItem;
+        this.fallback = fallback;
+        this.tags = tags;
+    }
+
+    /**
+     * Build an index of the values.
+     *
+     * @param values           The values, in the order they should be tested
+     * @param ingredientGetter Gets the ingredient of a value. May return null if the value has no
+     *                         ingredient.
+     * @param <T>              The type of value
+     * @return A new index
+     */
+    public static <T> IngredientIndex<T> build(Collection<T> values, Function<T, Ingredient> ingredientGetter) {
+        ITagCollection<Item> tags = ItemTags.getCollection();
+        Map<Item, List<Integer>> positionsByItem = new HashMap<>();
+        List<Integer> fallbackPositions = new ArrayList<>();
+        List<T> list = new ArrayList<>(values);
+
+        for (int i = 0; i < list.size(); ++i) {
+            Ingredient ingredient = ingredientGetter.apply(list.get(i));
+            if (ingredient == null || ingredient == Ingredient.EMPTY) continue;
+
+            if (ingredient.isSimple()) {
+                for (ItemStack stack : ingredient.getMatchingStacks()) {
+                    List<Integer> positions = positionsByItem.computeIfAbsent(stack.getItem(), item -> new ArrayList<>());
+                    // Tags may list the same item more than once
+                    if (positions.isEmpty() || positions.get(positions.size() - 1) != i) {
+                        positions.add(i);
+                    }
+                }
+            } else {
+                fallbackPositions.add(i);
+            }
+        }
+
+        // Merge fallbacks into the candidates of each item, keeping the original order
+        ImmutableMap.Builder<Item, List<T>> byItem = ImmutableMap.builder();
+        ImmutableMap.Builder<Item, Set<T>> exactByItem = ImmutableMap.builder();
+        ImmutableMap.Builder<Item, T> firstExactByItem = ImmutableMap.builder();
+        positionsByItem.forEach((item, positions) -> {
+            SortedSet<Integer> merged = new TreeSet<>(positions);
+            merged.addAll(fallbackPositions);
+            ImmutableList.Builder<T> builder = ImmutableList.builder();
+            merged.forEach(i -> builder.add(list.get(i)));
+            byItem.put(item, builder.build());
+
+            Set<T> exact = Collections.newSetFromMap(new IdentityHashMap<>());
+            positions.forEach(i -> exact.add(list.get(i)));
+            exactByItem.put(item, Collections.unmodifiableSet(exact));
+            if (merged.first().equals(positions.get(0))) {
+                firstExactByItem.put(item, list.get(positions.get(0)));
+            }
+        });
+
+        ImmutableList.Builder<T> fallback = ImmutableList.builder();
+        fallbackPositions.forEach(i -> fallback.add(list.get(i)));
+
+        return new IngredientIndex<>(ingredientGetter, byItem.build(), exactByItem.build(), firstExactByItem.build(), fallback.build(), tags);
+    }
+
+    /**
+     * Check if the index was built with the current item tags.
+     *
+     * @return False if item tags have changed since the index was built
+     */
+    public boolean isValid() {
+        return tags == ItemTags.getCollection();
+    }
+
+    /**
+     * Gets the values which could match the item. Test each candidate's ingredient to find the
+     * values which do.
+     *
+     * @param stack The item
+     * @return Immutable list of candidates, in the original order
+     */
+    public List<T> getCandidates(ItemStack stack) {
+        return byItem.getOrDefault(stack.getItem(), fallback);
+    }
+
+    /**
+     * Gets the first value whose ingredient matches the item. This is the same value a loop over
+     * all values would find.
+     *
+     * @param stack The item
+     * @return The first matching value, or null if there is none
+     */
+    @Nullable
+    public T getFirstMatch(ItemStack stack) {
+        if (stack.isEmpty()) return null;
+
+        Item item = stack.getItem();
+        T first = firstExactByItem.get(item);
+        if (first != null) {
+            return first;
+        }
+
+        Set<T> exact = exactByItem.getOrDefault(item, Collections.emptySet());
+        for (T value : getCandidates(stack)) {
+            if (exact.contains(value)) {
+                return value;
+            }
+            Ingredient ingredient = ingredientGetter.apply(value);
+            if (ingredient != null && ingredient.test(stack)) {
+                return value;
+            }
+        }
+        return null;
+    }
+}
@@ -0,0 +1,106 @@
+package net.silentchaos512.gear.util;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import net.minecraft.inventory.Inventory;
+import net.minecraft.item.Item;
+import net.minecraft.item.ItemStack;
+import net.minecraft.item.crafting.FurnaceRecipe;
+import net.minecraft.item.crafting.IRecipeType;
+import net.minecraft.item.crafting.RecipeManager;
+import net.minecraft.nbt.CompoundNBT;
+import net.minecraft.world.World;
+
+import javax.annotation.Nullable;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Objects;
+
+/**
+ * Caches smelting recipe outputs for the Magmatic trait, so breaking blocks does not scan every
+ * furnace recipe for every drop. Results for items without NBT are cached by item, others by item
+ * and NBT. Everything is discarded when recipes are reloaded.
+ */
+public final class SmeltingResultCache {
+    private static final Map<Item, ItemStack> BY_ITEM = new HashMap<>();
+    private static final Cache<Key, ItemStack> BY_ITEM_AND_NBT = CacheBuilder.newBuilder()
+            .maximumSize(256)
+            .build();
+    // Recipes are replaced on reload, along with the recipe manager
+    @Nullable private static RecipeManager recipeManager;
+
+    private SmeltingResultCache() {
+        throw new IllegalAccessError("Utility class");
+    }
+
+    /**
+     * Gets the output of the smelting recipe for the item. The returned stack is shared and must be
+     * copied before it is modified or given to anything else.
+     *
+     * @param stack The item to smelt
+     * @param world The world
+     * @return The recipe output, or an empty stack if the item cannot be smelted
+     */
+    public static ItemStack getResult(ItemStack stack, World world) {
+        if (stack.isEmpty()) return ItemStack.EMPTY;
+
+        RecipeManager manager = world.getRecipeManager();
+        if (manager != recipeManager) {
+            clear();
+            recipeManager = manager;
+        }
+
+        CompoundNBT tag = stack.getTag();
+        if (tag == null) {
+            ItemStack result = BY_ITEM.get(stack.getItem());
+            if (result == null) {
+                result = findResult(stack, world);
+                BY_ITEM.put(stack.getItem(), result);
+            }
+            return result;
+        }
+
+        Key key = new Key(stack.getItem(), tag);
+        ItemStack result = BY_ITEM_AND_NBT.getIfPresent(key);
+        if (result == null) {
+            result = findResult(stack, world);
+            BY_ITEM_AND_NBT.put(new Key(stack.getItem(), tag.copy()), result);
+        }
+        return result;
+    }
+
+    private static ItemStack findResult(ItemStack stack, World world) {
+        return world.getRecipeManager().getRecipe(IRecipeType.SMELTING, new Inventory(stack), world)
+                .map(FurnaceRecipe::getRecipeOutput)
+                .orElse(ItemStack.EMPTY);
+    }
+
+    public static void clear() {
+        BY_ITEM.clear();
+        BY_ITEM_AND_NBT.invalidateAll();
+        recipeManager = null;
+    }
+
+    private static final class Key {
+        private final Item item;
+        private final CompoundNBT tag;
+
+        private Key(Item item, CompoundNBT tag) {
+            this.item = item;
+            this.tag = tag;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) return true;
+            if (o == null || getClass() != o.getClass()) return false;
+            Key other = (Key) o;
+            return item == other.item && tag.equals(other.tag);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(item, tag);
+        }
+    }
+}
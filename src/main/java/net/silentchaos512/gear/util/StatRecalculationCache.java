@@ -0,0 +1,219 @@
+package net.silentchaos512.gear.util;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import net.minecraft.item.ItemStack;
+import net.minecraft.nbt.CompoundNBT;
+import net.minecraft.nbt.ListNBT;
+import net.silentchaos512.gear.api.item.ICoreItem;
+import net.silentchaos512.gear.api.item.ICoreTool;
+import net.silentchaos512.gear.api.parts.PartDataList;
+import net.silentchaos512.gear.api.stats.ItemStat;
+import net.silentchaos512.gear.api.stats.ItemStats;
+import net.silentchaos512.gear.api.stats.StatInstance;
+import net.silentchaos512.gear.api.stats.StatModifierAccumulator;
+import net.silentchaos512.gear.api.traits.ITrait;
+import net.silentchaos512.gear.gear.material.MaterialInstance;
+import net.silentchaos512.gear.parts.PartData;
+import net.silentchaos512.gear.parts.type.CompoundPart;
+import net.silentchaos512.lib.util.NameUtils;
+
+import javax.annotation.Nullable;
+import java.util.*;
+
+/**
+ * Remembers the intermediate results of {@link GearData#recalculateStats} for each gear stack.
+ * Everything up to the trait stage depends only on the construction parts, so recalculations caused
+ * by damage or lock changes can reuse an entry as-is and only re-run the trait hooks. When parts
+ * change, modifiers are only rebuilt for parts which were not on the item before.
+ * <p>
+ * Entries are keyed on stack identity and validated against the identity of the construction parts
+ * list, which is replaced every time parts are written. The results themselves are also shared
+ * between stacks with identical builds (same item, parts, and materials), so many copies of the
+ * same tool only need to be calculated once.
+ */
+final class StatRecalculationCache {
+    private static final Cache<ItemStack, Entry> CACHE = CacheBuilder.newBuilder()
+            .weakKeys()
+            .build();
+    // Results shared by all stacks with the same build signature. Trait hooks which depend on the
+    // stack (damage ratio) are still applied per stack, see GearData#recalculateStats.
+    private static final Cache<String, Result> SHARED_RESULTS = CacheBuilder.newBuilder()
+            .maximumSize(1024)
+            .build();
+
+    private StatRecalculationCache() {
+        throw new IllegalAccessError("Utility class");
+    }
+
+    /**
+     * Gets the cached entry for the stack, if it was built from the given parts list.
+     *
+     * @param stack    The gear item
+     * @param partsTag The current construction parts list
+     * @return The entry, or null if the stack has no entry or the parts have changed
+     */
+    @Nullable
+    static Entry get(ItemStack stack, ListNBT partsTag) {
+        Entry entry = CACHE.getIfPresent(stack);
+        return entry != null && entry.partsTag == partsTag ? entry : null;
+    }
+
+    /**
+     * Calculate and cache everything up to the trait stage. Modifiers of parts which are unchanged
+     * since the previous entry are reused.
+     *
+     * @param stack    The gear item
+     * @param item     The gear item's item
+     * @param partsTag The construction parts list the parts were read from
+     * @param parts    The construction parts
+     * @param partTags The compound each part was read from, in the same order as {@code parts}
+     * @return The new entry
+     */
+    static Entry build(ItemStack stack, ICoreItem item, ListNBT partsTag, PartDataList parts, List<CompoundNBT> partTags) {
+        Entry previous = CACHE.getIfPresent(stack);
+        String signature = getBuildSignature(stack, parts);
+        Result result = SHARED_RESULTS.getIfPresent(signature);
+        Map<CompoundNBT, StatModifierAccumulator> contributions;
+
+        if (result == null) {
+            contributions = new HashMap<>();
+            List<StatModifierAccumulator> partMods = new ArrayList<>(parts.size());
+
+            for (int i = 0; i < parts.size(); ++i) {
+                CompoundNBT tag = partTags.get(i);
+                StatModifierAccumulator mods = contributions.get(tag);
+                if (mods == null && previous != null) {
+                    mods = previous.partContributions.get(tag);
+                }
+                if (mods == null) {
+                    mods = getPartModifiers(stack, parts.get(i));
+                }
+                contributions.put(tag, mods);
+                partMods.add(mods);
+            }
+
+            result = computeResult(stack, item, parts, partMods);
+            SHARED_RESULTS.put(signature, result);
+        } else {
+            // Another item with the same build has been calculated already. Its parts are the
+            // same and in the same order, so its part modifiers apply to this item's parts too.
+            contributions = new HashMap<>();
+            for (int i = 0; i < parts.size(); ++i) {
+                contributions.putIfAbsent(partTags.get(i), result.partMods.get(i));
+            }
+        }
+
+        Entry entry = new Entry(partsTag, contributions, result);
+        CACHE.put(stack, entry);
+        return entry;
+    }
+
+    private static Result computeResult(ItemStack stack, ICoreItem item, PartDataList parts, List<StatModifierAccumulator> partMods) {
+        PartDataList uniqueParts = parts.getUniqueParts(true);
+        Map<ITrait, Integer> traits = TraitHelper.getTraits(stack, parts);
+        double synergy = GearData.calculateSynergyValue(parts, uniqueParts, traits);
+        boolean hasMissingRod = item instanceof ICoreTool && parts.getRods().isEmpty();
+
+        // Same order as GearData#getStatModifiers, so results are identical
+        StatModifierAccumulator stats = new StatModifierAccumulator();
+        for (ItemStat stat : ItemStats.allStatsOrderedExcluding(item.getExcludedStats(stack))) {
+            item.getBaseStatModifier(stat).ifPresent(mod -> stats.add(stat, mod));
+            item.getStatModifier(stat).ifPresent(mod -> stats.add(stat, mod));
+            for (StatModifierAccumulator mods : partMods) {
+                stats.addAll(stat, mods);
+            }
+            if (stat.doesSynergyApply())
+                stats.add(stat, (float) synergy - 1, StatInstance.Operation.MUL2);
+        }
+
+        return new Result(Collections.unmodifiableMap(traits), synergy, stats, hasMissingRod, Collections.unmodifiableList(partMods));
+    }
+
+    /**
+     * Gets a string which identifies everything the pre-trait stats of the item depend on: the
+     * item, its parts in order, and the materials (with grades) of each compound part.
+     */
+    private static String getBuildSignature(ItemStack stack, PartDataList parts) {
+        StringBuilder builder = new StringBuilder(NameUtils.fromItem(stack).toString());
+        for (PartData part : parts) {
+            builder.append(';').append(part.getPartId());
+            if (part.getPart() instanceof CompoundPart) {
+                builder.append('[');
+                for (MaterialInstance material : CompoundPart.getMaterials(part)) {
+                    builder.append(MaterialInstance.writeShorthand(material)).append(',');
+                }
+                builder.append(']');
+            }
+        }
+        return builder.toString();
+    }
+
+    private static StatModifierAccumulator getPartModifiers(ItemStack stack, PartData part) {
+        StatModifierAccumulator mods = new StatModifierAccumulator();
+        for (ItemStat stat : ItemStats.allStatsOrdered()) {
+            mods.addAll(stat, part.getStatModifiers(stack, stat));
+        }
+        return mods;
+    }
+
+    /**
+     * Discards all entries, including shared results. Needed when materials, parts, traits, or
+     * configs are reloaded, because cached modifiers and traits may no longer match the loaded data.
+     */
+    static void clear() {
+        CACHE.invalidateAll();
+        SHARED_RESULTS.invalidateAll();
+    }
+
+    static final class Entry {
+        private final ListNBT partsTag;
+        private final Map<CompoundNBT, StatModifierAccumulator> partContributions;
+        final Map<ITrait, Integer> traits;
+        final double synergy;
+        final StatModifierAccumulator modifiers;
+        final ItemStat[] stats;
+        final float[] baseValues;
+
+        private Entry(ListNBT partsTag, Map<CompoundNBT, StatModifierAccumulator> partContributions, Result result) {
+            this.partsTag = partsTag;
+            this.partContributions = partContributions;
+            this.traits = result.traits;
+            this.synergy = result.synergy;
+            this.modifiers = result.modifiers;
+            this.stats = result.stats;
+            this.baseValues = result.baseValues;
+        }
+    }
+
+    /**
+     * The part of a calculation which can be shared by all items with the same build. Must not be
+     * modified after creation.
+     */
+    private static final class Result {
+        private final Map<ITrait, Integer> traits;
+        private final double synergy;
+        private final StatModifierAccumulator modifiers;
+        // Stat values after the missing rod effect, but before traits and config multipliers
+        private final ItemStat[] stats;
+        private final float[] baseValues;
+        // Modifiers of each part, in construction order
+        private final List<StatModifierAccumulator> partMods;
+
+        private Result(Map<ITrait, Integer> traits, double synergy, StatModifierAccumulator modifiers, boolean hasMissingRod, List<StatModifierAccumulator> partMods) {
+            this.traits = traits;
+            this.synergy = synergy;
+            this.modifiers = modifiers;
+            this.partMods = partMods;
+
+            this.stats = modifiers.getStats().toArray(new ItemStat[0]);
+            this.baseValues = new float[this.stats.length];
+            for (int i = 0; i < this.stats.length; ++i) {
+                ItemStat stat = this.stats[i];
+                float initialValue = modifiers.compute(stat, stat.getDefaultValue());
+                // Some stats will be reduced if tool rod is missing (and required)
+                this.baseValues[i] = hasMissingRod ? stat.withMissingRodEffect(initialValue) : initialValue;
+            }
+        }
+    }
+}
@@ -0,0 +1,121 @@
+package net.silentchaos512.gear.util;
+
+import net.minecraft.util.math.MathHelper;
+import net.silentchaos512.gear.api.traits.ITrait;
+import net.silentchaos512.gear.traits.TraitManager;
+
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Sums trait levels from parts or materials, then averages and cancels them, for {@link
+ * TraitHelper#getTraits}. Traits are tracked in arrays by the order they were first added, with a
+ * lookup table by trait index (see {@link TraitManager.Snapshot#getIndex(ITrait)}). Cancellation
+ * uses the table from {@link TraitManager.Snapshot#willCancelWith(int, int)}. All lookups use the
+ * snapshot which was current when the aggregator was created, so traits being synced at the same
+ * time cannot mix indices from different snapshots. Results are the same as summing into a {@link
+ * LinkedHashMap}, including order.
+ */
+final class TraitAggregator {
+    private ITrait[] traits = new ITrait[8];
+    private int[] indices = new int[8];
+    private int[] levels = new int[8];
+    private int[] counts = new int[8];
+    private int size;
+    private final TraitManager.Snapshot snapshot = TraitManager.getSnapshot();
+    // Position + 1 of each trait in the arrays, by trait index
+    private final int[] positions = new int[snapshot.getTraitCount()];
+
+    void add(ITrait trait, int level) {
+        int position = indexOf(trait);
+        if (position < 0) {
+            position = size++;
+            if (position == traits.length) {
+                int newLength = traits.length * 2;
+                traits = Arrays.copyOf(traits, newLength);
+                indices = Arrays.copyOf(indices, newLength);
+                levels = Arrays.copyOf(levels, newLength);
+                counts = Arrays.copyOf(counts, newLength);
+            }
+            int index = snapshot.getIndex(trait);
+            traits[position] = trait;
+            indices[position] = index;
+            if (index >= 0) {
+                positions[index] = position + 1;
+            }
+        }
+        // Count total levels for each trait and number of parts with each trait
+        levels[position] += level;
+        counts[position] += 1;
+    }
+
+    private int indexOf(ITrait trait) {
+        int index = snapshot.getIndex(trait);
+        if (index >= 0) {
+            return positions[index] - 1;
+        }
+        // Not a loaded trait
+        for (int i = 0; i < size; ++i) {
+            if (traits[i].equals(trait)) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Average the levels, then cancel traits.
+     *
+     * @param halfCount Half of the number of parts (or materials). Levels are divided by this or
+     *                  the number of parts with the trait, whichever is larger.
+     * @return A new map of traits to final levels, in the order traits were first added
+     */
+    Map<ITrait, Integer> build(float halfCount) {
+        boolean[] removed = new boolean[size];
+
+        for (int i = 0; i < size; ++i) {
+            final float divisor = Math.max(halfCount, counts[i]);
+            final int value = Math.round(levels[i] / divisor);
+            levels[i] = MathHelper.clamp(value, 1, traits[i].getMaxLevel());
+        }
+
+        for (int i = 0; i < size; ++i) {
+            if (removed[i]) continue;
+
+            for (int j = i + 1; j < size; ++j) {
+                if (!removed[j] && willCancelWith(i, j)) {
+                    final int cancelLevel = traits[i].getCanceledLevel(levels[i], traits[j], levels[j]);
+
+                    if (cancelLevel > 0) {
+                        levels[i] = cancelLevel;
+                        removed[j] = true;
+                    } else if (cancelLevel < 0) {
+                        levels[j] = -cancelLevel;
+                        removed[i] = true;
+                        break;
+                    } else {
+                        removed[i] = true;
+                        removed[j] = true;
+                        break;
+                    }
+                }
+            }
+        }
+
+        Map<ITrait, Integer> result = new LinkedHashMap<>();
+        for (int i = 0; i < size; ++i) {
+            if (!removed[i]) {
+                result.put(traits[i], levels[i]);
+            }
+        }
+        return result;
+    }
+
+    private boolean willCancelWith(int i, int j) {
+        if (indices[i] >= 0 && indices[j] >= 0) {
+            return snapshot.willCancelWith(indices[i], indices[j]);
+        }
+        return traits[i].willCancelWith(traits[j]);
+    }
+}
@@ -0,0 +1,119 @@
+package net.silentchaos512.gear.util;
+
+import net.minecraft.entity.LivingEntity;
+import net.minecraft.entity.player.PlayerEntity;
+import net.minecraft.item.ItemStack;
+import net.silentchaos512.gear.api.stats.ItemStat;
+import net.silentchaos512.gear.api.traits.ITrait;
+import net.silentchaos512.gear.api.traits.TraitActionContext;
+
+import javax.annotation.Nullable;
+
+/**
+ * Runs the frequently used trait hooks over a decoded traits list, without creating a capturing
+ * lambda or a new {@link TraitActionContext} for every trait. One chain exists per {@link
+ * GearSummary.Traits}, so it is rebuilt only when the traits list changes. The context object is
+ * reused, unless the chain is entered again while running (a trait hook triggering another hook on
+ * the same item), in which case a new one is created.
+ */
+final class TraitChain {
+    private final ITrait[] traits;
+    private final int[] levels;
+    private final MutableContext context = new MutableContext();
+    private boolean running;
+
+    TraitChain(ITrait[] traits, int[] levels) {
+        this.traits = traits;
+        this.levels = levels;
+    }
+
+    float onGetStat(ItemStack gear, @Nullable PlayerEntity player, ItemStat stat, float value, float damageRatio) {
+        if (traits.length == 0) return value;
+
+        MutableContext ctx = begin(gear, player);
+        try {
+            for (int i = 0; i < traits.length; ++i) {
+                ctx.traitLevel = levels[i];
+                value = traits[i].onGetStat(ctx, stat, value, damageRatio);
+            }
+        } finally {
+            end(ctx);
+        }
+        return value;
+    }
+
+    float onDurabilityDamage(ItemStack gear, @Nullable PlayerEntity player, int damageTaken) {
+        float value = damageTaken;
+        if (traits.length == 0) return value;
+
+        MutableContext ctx = begin(gear, player);
+        try {
+            for (int i = 0; i < traits.length; ++i) {
+                ctx.traitLevel = levels[i];
+                value = traits[i].onDurabilityDamage(ctx, (int) value);
+            }
+        } finally {
+            end(ctx);
+        }
+        return value;
+    }
+
+    float onAttackEntity(ItemStack gear, @Nullable PlayerEntity player, LivingEntity target, float baseValue) {
+        float value = baseValue;
+        if (traits.length == 0) return value;
+
+        MutableContext ctx = begin(gear, player);
+        try {
+            for (int i = 0; i < traits.length; ++i) {
+                ctx.traitLevel = levels[i];
+                // Each trait gets the base value, only the last result is used
+                value = traits[i].onAttackEntity(ctx, target, baseValue);
+            }
+        } finally {
+            end(ctx);
+        }
+        return value;
+    }
+
+    private MutableContext begin(ItemStack gear, @Nullable PlayerEntity player) {
+        MutableContext ctx = running ? new MutableContext() : context;
+        running = true;
+        ctx.gear = gear;
+        ctx.player = player;
+        return ctx;
+    }
+
+    private void end(MutableContext ctx) {
+        ctx.gear = ItemStack.EMPTY;
+        ctx.player = null;
+        if (ctx == context) {
+            running = false;
+        }
+    }
+
+    private static final class MutableContext extends TraitActionContext {
+        @Nullable private PlayerEntity player;
+        private int traitLevel;
+        private ItemStack gear = ItemStack.EMPTY;
+
+        private MutableContext() {
+            super(null, 0, ItemStack.EMPTY);
+        }
+
+        @Nullable
+        @Override
+        public PlayerEntity getPlayer() {
+            return player;
+        }
+
+        @Override
+        public int getTraitLevel() {
+            return traitLevel;
+        }
+
+        @Override
+        public ItemStack getGear() {
+            return gear;
+        }
+    }
+}
@@ -19,39 +19,44 @@
 package net.silentchaos512.gear.util;
 
 import com.google.common.collect.ImmutableMap;
+import net.minecraft.entity.LivingEntity;
 import net.minecraft.entity.player.PlayerEntity;
+import net.minecraft.inventory.EquipmentSlotType;
 import net.minecraft.item.ItemStack;
-import net.minecraft.nbt.CompoundNBT;
-import net.minecraft.nbt.INBT;
 import net.minecraft.nbt.ListNBT;
 import net.minecraft.util.ResourceLocation;
-import net.minecraft.util.math.MathHelper;
 import net.minecraft.world.World;
 import net.minecraftforge.common.MinecraftForge;
 import net.silentchaos512.gear.SilentGear;
 import net.silentchaos512.gear.api.event.GetTraitsEvent;
+import net.silentchaos512.gear.api.item.ICoreArmor;
 import net.silentchaos512.gear.api.parts.PartDataList;
 import net.silentchaos512.gear.api.parts.PartTraitInstance;
 import net.silentchaos512.gear.api.parts.PartType;
+import net.silentchaos512.gear.api.stats.ItemStat;
 import net.silentchaos512.gear.api.traits.ITrait;
 import net.silentchaos512.gear.api.traits.TraitActionContext;
+import net.silentchaos512.gear.api.traits.TraitEvaluationContext;
 import net.silentchaos512.gear.api.traits.TraitFunction;
 import net.silentchaos512.gear.gear.material.MaterialInstance;
 import net.silentchaos512.gear.parts.PartData;
-import net.silentchaos512.gear.traits.TraitManager;
 
 import javax.annotation.Nullable;
 import java.util.*;
 
 public final class TraitHelper {
+    private static final EquipmentSlotType[] ARMOR_SLOTS = {
+            EquipmentSlotType.HEAD, EquipmentSlotType.CHEST, EquipmentSlotType.LEGS, EquipmentSlotType.FEET
+    };
+
     private TraitHelper() {throw new IllegalAccessError("Utility class");}
 
     /**
      * An easy way to activate an item's traits from anywhere. <strong>Use with care!</strong>
      * Calling this frequently (like every render tick) causes FPS to tank.
      * <p>
-     * This implementation pulls the item's traits straight from NBT to minimize object creation.
-     * The {@link TraitFunction} is applied to every trait.
+     * This implementation uses the item's decoded traits list, which is cached, to minimize object
+     * creation. The {@link TraitFunction} is applied to every trait.
      *
      * @param gear       The {@link net.silentchaos512.gear.api.item.ICoreItem} affected
      * @param inputValue The base value to have the traits act on.
@@ -67,29 +72,61 @@ public final class TraitHelper {
             return inputValue;
         }
 
-        ListNBT tagList = GearData.getPropertiesData(gear).getList("Traits", 10);
+        GearSummary.Traits traits = getTraitSummary(gear);
         float value = inputValue;
 
-        for (INBT nbt : tagList) {
-            if (nbt instanceof CompoundNBT) {
-                CompoundNBT tagCompound = (CompoundNBT) nbt;
-                String regName = tagCompound.getString("Name");
-                ITrait trait = TraitManager.get(regName);
-
-                if (trait != null) {
-                    int level = tagCompound.getByte("Level");
-                    value = action.apply(trait, level, value);
-                }
-            }
+        for (int i = 0; i < traits.traits.length; ++i) {
+            value = action.apply(traits.traits[i], traits.levels[i], value);
         }
 
         return value;
     }
 
     /**
-     * Gets the level of the trait on the gear, or zero if it does not have the trait. Similar to
-     * {@link #activateTraits(ItemStack, float, TraitFunction)}, this pulls the traits straight from
-     * NBT to minimize object creation.
+     * Applies {@link ITrait#onGetStat} of all the gear's traits to a stat value. Unlike {@link
+     * #activateTraits}, this creates no objects.
+     *
+     * @param gear        The gear item
+     * @param player      The player who has the item, if known
+     * @param stat        The stat
+     * @param value       The stat value before traits
+     * @param damageRatio The gear's damage divided by its max damage
+     * @return The stat value after traits
+     */
+    public static float onGetStat(ItemStack gear, @Nullable PlayerEntity player, ItemStat stat, float value, float damageRatio) {
+        return getTraitChain(gear).onGetStat(gear, player, stat, value, damageRatio);
+    }
+
+    /**
+     * Applies {@link ITrait#onDurabilityDamage} of all the gear's traits to an amount of damage.
+     * Unlike {@link #activateTraits}, this creates no objects.
+     *
+     * @param gear        The gear item
+     * @param player      The player using the item, if there is one
+     * @param damageTaken The damage before traits
+     * @return The damage after traits
+     */
+    public static float onDurabilityDamage(ItemStack gear, @Nullable PlayerEntity player, int damageTaken) {
+        return getTraitChain(gear).onDurabilityDamage(gear, player, damageTaken);
+    }
+
+    /**
+     * Applies {@link ITrait#onAttackEntity} of all the gear's traits. Unlike {@link
+     * #activateTraits}, this creates no objects.
+     *
+     * @param gear      The weapon
+     * @param player    The attacking player, if there is one
+     * @param target    The entity being attacked
+     * @param baseValue The attack damage before traits
+     * @return The attack damage after traits
+     */
+    public static float onAttackEntity(ItemStack gear, @Nullable PlayerEntity player, LivingEntity target, float baseValue) {
+        return getTraitChain(gear).onAttackEntity(gear, player, target, baseValue);
+    }
+
+    /**
+     * Gets the level of the trait on the gear, or zero if it does not have the trait. This checks a
+     * cached summary of the item's traits, so no objects are created.
      *
      * @param gear  The {@link net.silentchaos512.gear.api.item.ICoreItem}
      * @param trait The trait to look for
@@ -109,17 +146,7 @@ public final class TraitHelper {
      */
     public static int getTraitLevel(ItemStack gear, ResourceLocation traitId) {
         if (GearHelper.isGear(gear)) {
-            ListNBT tagList = GearData.getPropertiesData(gear).getList("Traits", 10);
-
-            for (INBT nbt : tagList) {
-                if (nbt instanceof CompoundNBT) {
-                    CompoundNBT tagCompound = (CompoundNBT) nbt;
-                    String regName = tagCompound.getString("Name");
-                    if (regName.equals(traitId.toString())) {
-                        return tagCompound.getByte("Level");
-                    }
-                }
-            }
+            return GearSummary.getTraitLevel(getTraitList(gear), traitId);
         }
 
         return 0;
@@ -146,56 +173,80 @@ public final class TraitHelper {
      * @return True if and only if the gear item has the trait
      */
     public static boolean hasTrait(ItemStack gear, ResourceLocation traitId) {
-        if (GearHelper.isGear(gear)) {
-            ListNBT tagList = GearData.getPropertiesData(gear).getList("Traits", 10);
-
-            for (INBT nbt : tagList) {
-                if (nbt instanceof CompoundNBT) {
-                    CompoundNBT tagCompound = (CompoundNBT) nbt;
-                    String regName = tagCompound.getString("Name");
-                    if (regName.equals(traitId.toString())) {
-                        return true;
-                    }
-                }
-            }
-
-            return false;
-        }
+        return GearHelper.isGear(gear) && GearSummary.hasTrait(getTraitList(gear), traitId);
+    }
 
-        return false;
+    /**
+     * Gets the level of the trait on the item the entity has in the given slot.
+     *
+     * @param entity  The entity
+     * @param slot    The equipment slot
+     * @param traitId The trait ID
+     * @return The level of the trait, or zero if the item is not gear or does not have the trait
+     */
+    public static int getTraitLevel(LivingEntity entity, EquipmentSlotType slot, ResourceLocation traitId) {
+        return getTraitLevel(entity.getItemStackFromSlot(slot), traitId);
     }
 
     public static int getHighestLevelEitherHand(PlayerEntity player, ResourceLocation traitId) {
-        ItemStack main = player.getHeldItemMainhand();
-        ItemStack off = player.getHeldItemOffhand();
-        return Math.max(getTraitLevel(main, traitId), getTraitLevel(off, traitId));
+        return Math.max(getTraitLevel(player, EquipmentSlotType.MAINHAND, traitId), getTraitLevel(player, EquipmentSlotType.OFFHAND, traitId));
     }
 
     public static boolean hasTraitEitherHand(PlayerEntity player, ResourceLocation traitId) {
-        ItemStack main = player.getHeldItemMainhand();
-        ItemStack off = player.getHeldItemOffhand();
-        return hasTrait(main, traitId) || hasTrait(off, traitId);
+        return hasTrait(player.getHeldItemMainhand(), traitId) || hasTrait(player.getHeldItemOffhand(), traitId);
+    }
+
+    /**
+     * Counts the armor pieces the entity is wearing which have the trait.
+     *
+     * @param entity  The entity
+     * @param traitId The trait ID
+     * @return The number of armor pieces with the trait, zero to four
+     */
+    public static int getArmorPieceCount(LivingEntity entity, ResourceLocation traitId) {
+        int count = 0;
+        for (EquipmentSlotType slot : ARMOR_SLOTS) {
+            ItemStack stack = entity.getItemStackFromSlot(slot);
+            if (stack.getItem() instanceof ICoreArmor && hasTrait(stack, traitId)) {
+                ++count;
+            }
+        }
+        return count;
     }
 
+    /**
+     * Gets the traits cached on the gear item, as calculated the last time stats were recalculated.
+     *
+     * @param gear The gear item
+     * @return New map of traits to levels, in the same order as the NBT
+     */
     public static Map<ITrait, Integer> getCachedTraits(ItemStack gear) {
         if (!GearHelper.isGear(gear)) return ImmutableMap.of();
+        return new LinkedHashMap<>(getTraitSummary(gear).asMap());
+    }
 
-        Map<ITrait, Integer> result = new LinkedHashMap<>();
-        ListNBT tagList = GearData.getPropertiesData(gear).getList("Traits", 10);
-
-        for (INBT nbt : tagList) {
-            if (nbt instanceof CompoundNBT) {
-                CompoundNBT tagCompound = (CompoundNBT) nbt;
-                String name = tagCompound.getString("Name");
-                ITrait trait = TraitManager.get(name);
-                int level = tagCompound.getByte("Level");
-                if (trait != null && level > 0) {
-                    result.put(trait, level);
-                }
-            }
-        }
+    /**
+     * Same as {@link #getCachedTraits}, but returns the shared summary map instead of a copy.
+     *
+     * @param gear The gear item
+     * @return Immutable map of traits to levels, in the same order as the NBT
+     */
+    static Map<ITrait, Integer> getCachedTraitsView(ItemStack gear) {
+        if (!GearHelper.isGear(gear)) return ImmutableMap.of();
+        return getTraitSummary(gear).asMap();
+    }
 
-        return result;
+    private static ListNBT getTraitList(ItemStack gear) {
+        return GearData.getPropertiesData(gear).getList("Traits", 10);
+    }
+
+    static GearSummary.Traits getTraitSummary(ItemStack gear) {
+        return GearSummary.getTraits(getTraitList(gear));
+    }
+
+    private static TraitChain getTraitChain(ItemStack gear) {
+        GearSummary.Traits traits = GearHelper.isGear(gear) ? getTraitSummary(gear) : GearSummary.Traits.EMPTY;
+        return traits.getChain();
     }
 
     /**
@@ -212,31 +263,18 @@ public final class TraitHelper {
             return ImmutableMap.of();
 
         final int totalMains = parts.getMains().size();
-        Map<ITrait, Integer> result = new LinkedHashMap<>();
-        Map<ITrait, Integer> countPartsWithTrait = new HashMap<>();
+        TraitAggregator aggregator = new TraitAggregator();
+        TraitEvaluationContext context = TraitEvaluationContext.forParts(gear, parts);
 
         for (PartData part : parts) {
             for (PartTraitInstance inst : part.getTraits(gear)) {
-                if (inst.conditionsMatch(parts, gear)) {
-                    ITrait trait = inst.getTrait();
-                    // Count total levels for each trait from all parts
-                    result.merge(trait, inst.getLevel(), Integer::sum);
-                    // Count number of parts with each trait
-                    countPartsWithTrait.merge(trait, 1, Integer::sum);
+                if (inst.conditionsMatch(context)) {
+                    aggregator.add(inst.getTrait(), inst.getLevel());
                 }
             }
         }
 
-        ITrait[] keys = result.keySet().toArray(new ITrait[0]);
-
-        for (ITrait trait : keys) {
-            final int partsWithTrait = countPartsWithTrait.get(trait);
-            final float divisor = Math.max(totalMains / 2f, partsWithTrait);
-            final int value = Math.round(result.get(trait) / divisor);
-            result.put(trait, MathHelper.clamp(value, 1, trait.getMaxLevel()));
-        }
-
-        cancelTraits(result, keys);
+        Map<ITrait, Integer> result = aggregator.build(totalMains / 2f);
         MinecraftForge.EVENT_BUS.post(new GetTraitsEvent(gear, parts, result));
         return result;
     }
@@ -245,79 +283,25 @@ public final class TraitHelper {
         if (materials.isEmpty())
             return Collections.emptyMap();
 
-        Map<ITrait, Integer> result = new LinkedHashMap<>();
-        Map<ITrait, Integer> countPartsWithTrait = new HashMap<>();
+        TraitAggregator aggregator = new TraitAggregator();
+        TraitEvaluationContext context = TraitEvaluationContext.forMaterials(gear, partType, materials);
 
         for (MaterialInstance material : materials) {
             for (PartTraitInstance inst : material.getMaterial().getTraits(partType, gear)) {
-                if (inst.conditionsMatch(materials, partType, gear)) {
-                    result.merge(inst.getTrait(), inst.getLevel(), Integer::sum);
-                    countPartsWithTrait.merge(inst.getTrait(), 1, Integer::sum);
+                if (inst.conditionsMatch(context)) {
+                    aggregator.add(inst.getTrait(), inst.getLevel());
                 }
             }
         }
 
-        ITrait[] keys = result.keySet().toArray(new ITrait[0]);
-
-        for (ITrait trait : keys) {
-            final int partsWithTrait = countPartsWithTrait.get(trait);
-            final float divisor = Math.max(materials.size() / 2f, partsWithTrait);
-            final int value = Math.round(result.get(trait) / divisor);
-            result.put(trait, MathHelper.clamp(value, 1, trait.getMaxLevel()));
-        }
-
-        cancelTraits(result, keys);
+        Map<ITrait, Integer> result = aggregator.build(materials.size() / 2f);
         // FIXME
 //        MinecraftForge.EVENT_BUS.post(new GetTraitsEvent(gear, materials, result));
         return result;
     }
 
-    private static void cancelTraits(Map<ITrait, Integer> mapToModify, ITrait[] keys) {
-        for (int i = 0; i < keys.length; ++i) {
-            ITrait t1 = keys[i];
-
-            if (mapToModify.containsKey(t1)) {
-                for (int j = i + 1; j < keys.length; ++j) {
-                    ITrait t2 = keys[j];
-
-                    if (mapToModify.containsKey(t2) && t1.willCancelWith(t2)) {
-                        final int level = mapToModify.get(t1);
-                        final int otherLevel = mapToModify.get(t2);
-                        final int cancelLevel = t1.getCanceledLevel(level, t2, otherLevel);
-
-                        if (cancelLevel > 0) {
-                            mapToModify.put(t1, cancelLevel);
-                            mapToModify.remove(t2);
-                        } else if (cancelLevel < 0) {
-                            mapToModify.put(t2, -cancelLevel);
-                            mapToModify.remove(t1);
-                            break;
-                        } else {
-                            mapToModify.remove(t1);
-                            mapToModify.remove(t2);
-                            break;
-                        }
-                    }
-                }
-            }
-        }
-    }
-
     static void tickTraits(World world, @Nullable PlayerEntity player, ItemStack gear, boolean isEquipped) {
         // Performance test on 2018-11-26 - roughly 5% FPS loss max (negligible), average ~420 FPS
-        ListNBT tagList = GearData.getPropertiesData(gear).getList("Traits", 10);
-
-        for (INBT nbt : tagList) {
-            if (nbt instanceof CompoundNBT) {
-                CompoundNBT tagCompound = (CompoundNBT) nbt;
-                String regName = tagCompound.getString("Name");
-                ITrait trait = TraitManager.get(regName);
-
-                if (trait != null) {
-                    int level = tagCompound.getByte("Level");
-                    trait.onUpdate(new TraitActionContext(player, level, gear), isEquipped);
-                }
-            }
-        }
+        TraitTickScheduler.tick(world, player, gear, isEquipped);
     }
 }
@@ -0,0 +1,64 @@
+package net.silentchaos512.gear.util;
+
+import net.minecraft.entity.player.PlayerEntity;
+import net.minecraft.item.ItemStack;
+import net.minecraft.world.World;
+import net.silentchaos512.gear.SilentGear;
+import net.silentchaos512.gear.api.traits.ITrait;
+import net.silentchaos512.gear.api.traits.TraitActionContext;
+import net.silentchaos512.gear.traits.SimpleTrait;
+
+import javax.annotation.Nullable;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Decides which traits need {@link ITrait#onUpdate} calls, and how often. Most trait types do
+ * nothing on update, so only traits whose class actually overrides {@code onUpdate} are ticked,
+ * every {@link ITrait#getUpdateInterval()} ticks. Gear with no such traits is skipped entirely.
+ * <p>
+ * Updates are offset by the player's entity ID, so players do not all update on the same tick.
+ */
+final class TraitTickScheduler {
+    // Whether each trait class overrides onUpdate
+    private static final Map<Class<?>, Boolean> OVERRIDES_UPDATE = new ConcurrentHashMap<>();
+
+    private TraitTickScheduler() {
+        throw new IllegalAccessError("Utility class");
+    }
+
+    /**
+     * Gets the number of ticks between updates of the trait.
+     *
+     * @param trait The trait
+     * @return The update interval, or zero if the trait never needs to be updated
+     */
+    static int getUpdateInterval(ITrait trait) {
+        if (!OVERRIDES_UPDATE.computeIfAbsent(trait.getClass(), TraitTickScheduler::overridesUpdate)) {
+            return 0;
+        }
+        return Math.max(trait.getUpdateInterval(), 0);
+    }
+
+    private static boolean overridesUpdate(Class<?> clazz) {
+        try {
+            Class<?> declaringClass = clazz.getMethod("onUpdate", TraitActionContext.class, boolean.class).getDeclaringClass();
+            return declaringClass != SimpleTrait.class;
+        } catch (NoSuchMethodException ex) {
+            SilentGear.LOGGER.catching(ex);
+            return true;
+        }
+    }
+
+    static void tick(World world, @Nullable PlayerEntity player, ItemStack gear, boolean isEquipped) {
+        GearSummary.Traits traits = TraitHelper.getTraitSummary(gear);
+        if (traits.tickingTraits.length == 0) return;
+
+        long time = world.getGameTime() + (player != null ? player.getEntityId() : 0);
+        for (int i = 0; i < traits.tickingTraits.length; ++i) {
+            if (time % traits.tickIntervals[i] == 0) {
+                traits.tickingTraits[i].onUpdate(new TraitActionContext(player, traits.tickingLevels[i], gear), isEquipped);
+            }
+        }
+    }
+}
@@ -0,0 +1,272 @@
+package net.silentchaos512.gear.api.stats;
+
+import com.google.gson.JsonElement;
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParser;
+import net.minecraft.util.math.MathHelper;
+import net.silentchaos512.gear.api.stats.StatInstance.Operation;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.lang.reflect.Field;
+import java.lang.reflect.Modifier;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.*;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+
+/**
+ * Checks that the single-pass stat computation in {@link ItemStat} gives bit-identical results to
+ * the original per-operation computation, for both the collection and {@link
+ * StatModifierAccumulator} overloads.
+ */
+public class ItemStatComputeTest {
+    private static final Path MATERIALS_PATH = Paths.get("src/generated/resources/data/silentgear/silentgear_materials");
+    private static final Random RANDOM = new Random(512);
+
+    @Test
+    public void testEmpty() {
+        for (ItemStat stat : ItemStats.allStatsOrdered()) {
+            assertComputeMatches(stat, stat.getDefaultValue(), Collections.emptyList());
+            assertComputeMatches(stat, 7.5f, Collections.emptyList());
+        }
+    }
+
+    @Test
+    public void testEveryOperation() {
+        for (ItemStat stat : ItemStats.allStatsOrdered()) {
+            for (Operation op : Operation.values()) {
+                assertComputeMatches(stat, 0f, mods(op, 3f));
+                assertComputeMatches(stat, 2f, mods(op, -0.25f, 0.5f, 4f));
+            }
+            assertComputeMatches(stat, 1f, Arrays.asList(
+                    new StatInstance(0.2f, Operation.MUL2),
+                    new StatInstance(6f, Operation.AVG),
+                    new StatInstance(1.5f, Operation.ADD),
+                    new StatInstance(0.3f, Operation.MUL1),
+                    new StatInstance(9f, Operation.MAX),
+                    new StatInstance(4f, Operation.AVG),
+                    new StatInstance(-2f, Operation.ADD),
+                    new StatInstance(-0.1f, Operation.MUL2),
+                    new StatInstance(3f, Operation.MAX),
+                    new StatInstance(0.05f, Operation.MUL1)));
+        }
+    }
+
+    @Test
+    public void testWeightedAverage() {
+        ItemStat stat = ItemStats.DURABILITY;
+        // Ties, so every weight base is exactly the minimum
+        assertComputeMatches(stat, 0f, mods(Operation.AVG, 5f, 5f, 5f, 5f));
+        // Far above the primary modifier, so weight bases are clamped to the maximum
+        assertComputeMatches(stat, 0f, mods(Operation.AVG, 1f, 100f, 1000f));
+        // Slightly above the primary modifier, so weight bases are not clamped
+        assertComputeMatches(stat, 0f, mods(Operation.AVG, 10f, 12f, 11f, 17.5f));
+        // Zero and negative primary modifiers
+        assertComputeMatches(stat, 0f, mods(Operation.AVG, 0f, 3f, 2f));
+        assertComputeMatches(stat, 0f, mods(Operation.AVG, -4f, 3f, -1f));
+        // More modifiers than the weight tables cover
+        float[] values = new float[80];
+        Arrays.fill(values, 2f);
+        assertComputeMatches(stat, 0f, mods(Operation.AVG, values));
+        for (int i = 0; i < values.length; ++i) {
+            values[i] = 1f + RANDOM.nextFloat() * 20f;
+        }
+        assertComputeMatches(stat, 0f, mods(Operation.AVG, values));
+    }
+
+    @Test
+    public void testRandomModifiers() {
+        Operation[] ops = Operation.values();
+        for (int i = 0; i < 2000; ++i) {
+            List<StatInstance> list = new ArrayList<>();
+            for (int j = RANDOM.nextInt(12); j > 0; --j) {
+                float value = RANDOM.nextBoolean() ? RANDOM.nextInt(6) : (RANDOM.nextFloat() - 0.2f) * 50f;
+                list.add(new StatInstance(value, ops[RANDOM.nextInt(ops.length)]));
+            }
+            for (ItemStat stat : ItemStats.allStatsOrdered()) {
+                assertComputeMatches(stat, stat.getDefaultValue(), list);
+            }
+        }
+    }
+
+    @Test
+    public void testBuiltInMaterials() throws IOException {
+        Map<String, ItemStat> statsByName = getStatsByName();
+        // Modifiers by part type, stat, and material
+        Map<String, Map<ItemStat, List<List<StatInstance>>>> modifiers = new TreeMap<>();
+
+        List<Path> files;
+        try (Stream<Path> stream = Files.list(MATERIALS_PATH)) {
+            files = stream.filter(p -> p.toString().endsWith(".json")).sorted().collect(Collectors.toList());
+        }
+        assertFalse("No material files found in " + MATERIALS_PATH.toAbsolutePath(), files.isEmpty());
+
+        for (Path file : files) {
+            JsonObject json;
+            try (Reader reader = Files.newBufferedReader(file, StandardCharsets.UTF_8)) {
+                json = new JsonParser().parse(reader).getAsJsonObject();
+            }
+            if (!json.has("stats")) continue;
+
+            for (Map.Entry<String, JsonElement> partEntry : json.getAsJsonObject("stats").entrySet()) {
+                for (Map.Entry<String, JsonElement> statEntry : partEntry.getValue().getAsJsonObject().entrySet()) {
+                    ItemStat stat = statsByName.get(statEntry.getKey());
+                    if (stat == null) continue;
+
+                    List<StatInstance> list = new ArrayList<>();
+                    if (statEntry.getValue().isJsonArray()) {
+                        statEntry.getValue().getAsJsonArray().forEach(e -> list.add(StatInstance.read(stat, e)));
+                    } else {
+                        list.add(StatInstance.read(stat, statEntry.getValue()));
+                    }
+                    modifiers.computeIfAbsent(partEntry.getKey(), k -> new LinkedHashMap<>())
+                            .computeIfAbsent(stat, k -> new ArrayList<>())
+                            .add(list);
+                }
+            }
+        }
+        assertFalse("No stats found in material files", modifiers.isEmpty());
+
+        modifiers.forEach((partType, byStat) -> byStat.forEach((stat, lists) -> {
+            // Each material alone
+            lists.forEach(list -> assertComputeMatches(stat, stat.getDefaultValue(), list));
+            // Pairs and triples of materials, as in gear made from several
+            for (int i = 0; i < lists.size(); ++i) {
+                for (int j = 0; j < lists.size(); ++j) {
+                    assertComputeMatches(stat, stat.getDefaultValue(), concat(lists.get(i), lists.get(j)));
+                    int k = (i + j + 1) % lists.size();
+                    assertComputeMatches(stat, stat.getDefaultValue(), concat(lists.get(i), lists.get(j), lists.get(k)));
+                }
+            }
+            // Everything at once
+            assertComputeMatches(stat, stat.getDefaultValue(), lists.stream().flatMap(List::stream).collect(Collectors.toList()));
+        }));
+    }
+
+    private static void assertComputeMatches(ItemStat stat, float baseValue, List<StatInstance> modifiers) {
+        StatModifierAccumulator accumulator = new StatModifierAccumulator();
+        accumulator.addAll(stat, modifiers);
+
+        for (boolean clamp : new boolean[]{true, false}) {
+            float expected = computeReference(stat, baseValue, clamp, modifiers);
+            String message = stat.getIndex() + " " + modifiers + " clamp=" + clamp;
+            assertBitsEqual(message, expected, stat.compute(baseValue, clamp, modifiers));
+            assertBitsEqual(message, expected, stat.compute(baseValue, clamp, accumulator));
+        }
+        for (Operation op : Operation.values()) {
+            assertBitsEqual(op + " " + modifiers, getWeightedAverageReference(modifiers, op), ItemStat.getWeightedAverage(modifiers, op));
+        }
+    }
+
+    private static void assertBitsEqual(String message, float expected, float actual) {
+        assertEquals(message + ": expected " + expected + " but was " + actual, Float.floatToIntBits(expected), Float.floatToIntBits(actual));
+    }
+
+    private static List<StatInstance> mods(Operation op, float... values) {
+        List<StatInstance> list = new ArrayList<>();
+        for (float value : values) {
+            list.add(new StatInstance(value, op));
+        }
+        return list;
+    }
+
+    @SafeVarargs
+    private static List<StatInstance> concat(List<StatInstance>... lists) {
+        List<StatInstance> ret = new ArrayList<>();
+        for (List<StatInstance> list : lists) {
+            ret.addAll(list);
+        }
+        return ret;
+    }
+
+    private static Map<String, ItemStat> getStatsByName() {
+        Map<String, ItemStat> map = new HashMap<>();
+        for (Field field : ItemStats.class.getFields()) {
+            if (Modifier.isStatic(field.getModifiers()) && field.getType() == ItemStat.class) {
+                try {
+                    map.put(field.getName().toLowerCase(Locale.ROOT), (ItemStat) field.get(null));
+                } catch (IllegalAccessException ex) {
+                    throw new RuntimeException(ex);
+                }
+            }
+        }
+        return map;
+    }
+
+    // The original computation, which loops over all modifiers once per operation
+
+    private static float computeReference(ItemStat stat, float baseValue, boolean clampValue, Collection<StatInstance> modifiers) {
+        if (modifiers.isEmpty())
+            return baseValue;
+
+        float f0 = baseValue;
+
+        // Average (weighted, used for mains)
+        f0 += getWeightedAverageReference(modifiers, Operation.AVG);
+
+        // Maximum
+        for (StatInstance mod : modifiers)
+            if (mod.getOp() == Operation.MAX)
+                f0 = Math.max(f0, mod.getValue());
+
+        // Multiplicative
+        float f1 = f0;
+        for (StatInstance mod : modifiers)
+            if (mod.getOp() == Operation.MUL1)
+                f1 += f0 * mod.getValue();
+
+        // Multiplicative2
+        for (StatInstance mod : modifiers)
+            if (mod.getOp() == Operation.MUL2)
+                f1 *= 1.0f + mod.getValue();
+
+        // Additive
+        for (StatInstance mod : modifiers)
+            if (mod.getOp() == Operation.ADD)
+                f1 += mod.getValue();
+
+        return clampValue ? stat.clampValue(f1) : f1;
+    }
+
+    private static float getPrimaryModReference(Iterable<StatInstance> modifiers, Operation op) {
+        float primaryMod = -1f;
+        for (StatInstance mod : modifiers) {
+            if (mod.getOp() == op) {
+                if (primaryMod < 0f) {
+                    primaryMod = mod.getValue();
+                }
+            }
+        }
+        return primaryMod > 0 ? primaryMod : 1;
+    }
+
+    private static float getWeightedAverageReference(Collection<StatInstance> modifiers, Operation op) {
+        float primaryMod = getPrimaryModReference(modifiers, op);
+        float ret = 0;
+        int count = 0;
+        float totalWeight = 0f;
+        for (StatInstance mod : modifiers) {
+            if (mod.getOp() == op) {
+                ++count;
+                float weight = getModifierWeightReference(mod.getValue(), primaryMod, count);
+                totalWeight += weight;
+                ret += mod.getValue() * weight;
+            }
+        }
+        return count > 0 ? ret / totalWeight : ret;
+    }
+
+    private static float getModifierWeightReference(float value, float primaryMod, int count) {
+        float weightBase = 2f + 2f * (value - primaryMod) / primaryMod;
+        float weightBaseClamped = MathHelper.clamp(weightBase, 2f, 40f);
+        return (float) Math.pow(weightBaseClamped, -(count == 0 ? count : 0.5 + 0.5f * count));
+    }
+}